@@ -0,0 +1,42 @@
+package com.github.bnsd55.main;
+
+import com.github.bnsd55.retryCatch.RetryCatch;
+import com.github.bnsd55.retryCatch.policies.CircuitBreaker;
+import com.github.bnsd55.retryCatch.simulation.LatencyDistribution;
+import com.github.bnsd55.retryCatch.simulation.SimulationReport;
+import com.github.bnsd55.retryCatch.simulation.Simulator;
+import com.github.bnsd55.retryCatch.simulation.SyntheticDependency;
+import com.github.bnsd55.retryCatch.simulation.VirtualClock;
+import com.github.bnsd55.retryCatch.state.AtomicStateStore;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates overlapping requests and checks that the policy sees them in virtual time order:
+ * 3 requests arrive 100 milliseconds apart and every call fails after a second,
+ * the circuit opens after a single failure, at 1 second, when all the 3 requests have already called the dependency.
+ * So the dependency gets 3 calls and the retries are rejected by the open circuit.
+ */
+public class OverlappingRequestsSimulation {
+    public static void main(String... args) {
+        VirtualClock clock = new VirtualClock();
+
+        SyntheticDependency dependency = new SyntheticDependency(clock, 42)
+                .latency(LatencyDistribution.constant(1, TimeUnit.SECONDS))
+                .failureRate(1.0);
+
+        RetryCatch policy = new RetryCatch()
+                .retryCount(1)
+                .withCircuitBreaker(new CircuitBreaker(1, 5, TimeUnit.SECONDS,
+                        new AtomicStateStore(CircuitBreaker.SLOTS), clock));
+
+        SimulationReport report = new Simulator(clock, 7)
+                .run(policy, dependency, 3, LatencyDistribution.constant(100, TimeUnit.MILLISECONDS));
+
+        System.out.println(report);
+
+        if (report.getAttempts() != 3 || report.getRejections() != 3) {
+            throw new IllegalStateException("Expected 3 calls and 3 rejected retries, got: " + report);
+        }
+    }
+}
@@ -1,13 +1,28 @@
 package com.github.bnsd55.retryCatch;
 
+import com.github.bnsd55.retryCatch.exceptions.CircuitOpenException;
+import com.github.bnsd55.retryCatch.exceptions.RateLimitExceededException;
+import com.github.bnsd55.retryCatch.executors.PrioritizedTask;
+import com.github.bnsd55.retryCatch.executors.PriorityRetryExecutor;
 import com.github.bnsd55.retryCatch.interfaces.CheckedCallable;
 import com.github.bnsd55.retryCatch.interfaces.CheckedRunnable;
 import com.github.bnsd55.retryCatch.interfaces.ExecutorServiceProvider;
 import com.github.bnsd55.retryCatch.interfaces.ScheduledExecutorServiceProvider;
+import com.github.bnsd55.retryCatch.policies.AttemptMetrics;
+import com.github.bnsd55.retryCatch.policies.CircuitBreaker;
+import com.github.bnsd55.retryCatch.policies.RateLimiter;
+import com.github.bnsd55.retryCatch.policies.RetryBudget;
+import com.github.bnsd55.retryCatch.recorder.AttemptOutcome;
+import com.github.bnsd55.retryCatch.recorder.AttemptRecorder;
+import com.github.bnsd55.retryCatch.state.KeyedRetryState;
+import com.github.bnsd55.retryCatch.state.RetryState;
+import com.github.bnsd55.retryCatch.utilities.FailureAggregator;
 import com.github.bnsd55.retryCatch.utilities.Predicates;
 
+import java.lang.reflect.UndeclaredThrowableException;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
@@ -70,6 +85,55 @@ public class RetryCatch implements ExecutorServiceProvider, ScheduledExecutorSer
      */
     private ExecutorService executorService;
 
+    /**
+     * A rate limiter that gates every attempt (first attempt and retries),
+     * may be shared between RetryCatch instances that call the same dependency.
+     */
+    private RateLimiter rateLimiter;
+
+    /**
+     * The circuit breaker, retry budget and metrics of calls without a key,
+     * the circuit breaker and the retry budget may be shared between RetryCatch instances
+     * (and processes, see MappedStateStore).
+     */
+    private RetryState retryState;
+
+    /**
+     * The per key circuit breaker, retry budget and metrics of keyed calls.
+     */
+    private KeyedRetryState<?> keyedRetryState;
+
+    /**
+     * Records every attempt (JFR events and/or a ring buffer), null when recording is disabled.
+     */
+    private AttemptRecorder recorder;
+
+    /**
+     * True when the failure callback gets a RetryFailedException that aggregates the failures of all the attempts.
+     */
+    private boolean aggregateFailures;
+
+    /**
+     * The amount of first failures the RetryFailedException keeps as suppressed exceptions.
+     */
+    private int keepFirstFailures;
+
+    /**
+     * The amount of last failures the RetryFailedException keeps as suppressed exceptions.
+     */
+    private int keepLastFailures;
+
+    /**
+     * True in order to strip the stack traces of repeated identical failures.
+     */
+    private boolean collapseRepeatedFailures;
+
+    /**
+     * How long (in nanoseconds) after the submission a retry queued on a PriorityRetryExecutor may still run,
+     * 0 when retries have no deadline.
+     */
+    private long retryDeadlineNanos;
+
     /**
      * Ctor
      */
@@ -80,6 +144,12 @@ public class RetryCatch implements ExecutorServiceProvider, ScheduledExecutorSer
         this.successCListener = null;
         this.successRListener = null;
         this.executorService = null;
+        this.rateLimiter = null;
+        this.retryState = new RetryState(null, null, null);
+        this.keyedRetryState = null;
+        this.recorder = null;
+        this.aggregateFailures = false;
+        this.retryDeadlineNanos = 0;
 
         // Initializing RetryCatch to retry on every exception if no exception mentioned
         this.setRetryOnExceptions(Exception.class);
@@ -110,12 +180,104 @@ public class RetryCatch implements ExecutorServiceProvider, ScheduledExecutorSer
      */
     @Override
     public <T> void call(CheckedCallable<T> callable) {
-        int retries = 0;
+        this.callWithState(callable, this.retryState);
+    }
+
+    /**
+     * Executes a callable (synchronous) with the circuit breaker,
+     * retry budget and metrics of the given key.
+     *
+     * @param key      the key (shard, tenant...) of the call, must not be null
+     * @param callable the function to execute
+     * @param <T>      the type of the returned value
+     */
+    public <T> void call(Object key, CheckedCallable<T> callable) {
+        RetryState state = this.keyedStateOf(key);
+
+        if (state != null) {
+            this.callWithState(callable, state);
+        }
+    }
+
+    /**
+     * Executes a callable (synchronous) from its first attempt.
+     *
+     * @param callable the function to execute
+     * @param state    the circuit breaker, retry budget and metrics of the call
+     * @param <T>      the type of the returned value
+     */
+    private <T> void callWithState(CheckedCallable<T> callable, RetryState state) {
+        this.callWithState(callable, state, this.newFailureAggregator(), 0, 0, null, PrioritizedTask.NO_DEADLINE, null,
+                null);
+    }
 
+    /**
+     * Executes a callable (synchronous) and returns its result,
+     * unlike call() the terminal failure is thrown (after the fail callback has been executed),
+     * so a single configured RetryCatch can be shared and invoked concurrently.
+     *
+     * @param callable the function to execute
+     * @param <T>      the type of the returned value
+     * @return the value returned by the callable
+     * @throws Exception the terminal failure, the exception that ended the execution
+     *                   or a RetryFailedException when failures aggregation is enabled
+     */
+    public <T> T invoke(CheckedCallable<T> callable) throws Exception {
+        Invocation<T> invocation = new Invocation<>();
+
+        this.callWithState(callable, this.retryState, this.newFailureAggregator(), 0, 0, null,
+                PrioritizedTask.NO_DEADLINE, invocation, null);
+
+        if (invocation.failure instanceof Exception) {
+            throw (Exception) invocation.failure;
+        } else if (invocation.failure instanceof Error) {
+            throw (Error) invocation.failure;
+        } else if (invocation.failure != null) {
+            throw new UndeclaredThrowableException(invocation.failure);
+        }
+
+        return invocation.result;
+    }
+
+    /**
+     * The RetryCatch core for callable objects,
+     * manage the retry times of callable,
+     * when a PriorityRetryExecutor is provided every retry is queued on it instead of running in the loop.
+     *
+     * @param callable      the function to execute
+     * @param state         the circuit breaker, retry budget and metrics of the call
+     * @param failures      the failures of the previous attempts, or null when failures aggregation is disabled
+     * @param retries       the current retry counter
+     * @param attempt       the current attempt number
+     * @param executor      the executor to queue the retries on, or null in order to retry in the loop
+     * @param deadlineNanos the deadline of the queued retries
+     * @param invocation    captures the result or the terminal failure for invoke(), or null
+     * @param lastFailure   the failure of the previous attempt, or null before the first attempt
+     * @param <T>           the type of the returned value
+     */
+    private <T> void callWithState(CheckedCallable<T> callable, RetryState state, FailureAggregator failures,
+                                   int retries, int attempt, PriorityRetryExecutor executor, long deadlineNanos,
+                                   Invocation<T> invocation, Throwable lastFailure) {
         while (true) {
+            long waitStart = this.recorder != null ? System.nanoTime() : 0L;
+
+            if (!this.isAttemptPermitted(state, failures, invocation, lastFailure)) {
+                this.recordAttempt(attempt, AttemptOutcome.REJECTED, null, waitStart, waitStart);
+                break;
+            }
+
+            long attemptStart = this.recorder != null ? System.nanoTime() : 0L;
+
             try {
                 T result = callable.call();
 
+                if (invocation != null) {
+                    invocation.result = result;
+                }
+
+                this.recordAttempt(attempt, AttemptOutcome.SUCCESS, null, waitStart, attemptStart);
+                this.onAttemptSucceeded(state);
+
                 if (this.successCListener != null && this.successRListener != null) {
                     System.err.println("Error: Must be a single onSuccess callback");
                 } else if (this.successCListener == null && this.successRListener != null) {
@@ -126,9 +288,23 @@ public class RetryCatch implements ExecutorServiceProvider, ScheduledExecutorSer
 
                 break;
             } catch (Throwable t) {
-                if (!this.retryCatch(t, retries)) break;
+                this.recordAttempt(attempt, AttemptOutcome.FAILURE, t, waitStart, attemptStart);
+
+                if (!this.retryCatch(t, retries, state, failures, invocation)) break;
+
+                lastFailure = t;
+
+                if (executor != null) {
+                    int nextRetries = retries + 1;
+                    int nextAttempt = attempt + 1;
+
+                    this.queueRetry(executor, () -> this.callWithState(callable, state, failures, nextRetries,
+                            nextAttempt, executor, deadlineNanos, null, t), nextAttempt, deadlineNanos, (Exception) t, failures);
+                    break;
+                }
             } finally {
                 retries++;
+                attempt++;
             }
         }
     }
@@ -142,12 +318,67 @@ public class RetryCatch implements ExecutorServiceProvider, ScheduledExecutorSer
      */
     @Override
     public void run(CheckedRunnable runnable) {
-        int retries = 0;
+        this.runWithState(runnable, this.retryState);
+    }
 
+    /**
+     * Executes a runnable (synchronous) with the circuit breaker,
+     * retry budget and metrics of the given key.
+     *
+     * @param key      the key (shard, tenant...) of the task, must not be null
+     * @param runnable the task to execute
+     */
+    public void run(Object key, CheckedRunnable runnable) {
+        RetryState state = this.keyedStateOf(key);
+
+        if (state != null) {
+            this.runWithState(runnable, state);
+        }
+    }
+
+    /**
+     * Executes a runnable (synchronous) from its first attempt.
+     *
+     * @param runnable the task to execute
+     * @param state    the circuit breaker, retry budget and metrics of the task
+     */
+    private void runWithState(CheckedRunnable runnable, RetryState state) {
+        this.runWithState(runnable, state, this.newFailureAggregator(), 0, 0, null, PrioritizedTask.NO_DEADLINE, null);
+    }
+
+    /**
+     * The RetryCatch core of runnable objects,
+     * manage the retry times of runnable,
+     * when a PriorityRetryExecutor is provided every retry is queued on it instead of running in the loop.
+     *
+     * @param runnable      the task to execute
+     * @param state         the circuit breaker, retry budget and metrics of the task
+     * @param failures      the failures of the previous attempts, or null when failures aggregation is disabled
+     * @param retries       the current retry counter
+     * @param attempt       the current attempt number
+     * @param executor      the executor to queue the retries on, or null in order to retry in the loop
+     * @param deadlineNanos the deadline of the queued retries
+     * @param lastFailure   the failure of the previous attempt, or null before the first attempt
+     */
+    private void runWithState(CheckedRunnable runnable, RetryState state, FailureAggregator failures,
+                              int retries, int attempt, PriorityRetryExecutor executor, long deadlineNanos,
+                              Throwable lastFailure) {
         while (true) {
+            long waitStart = this.recorder != null ? System.nanoTime() : 0L;
+
+            if (!this.isAttemptPermitted(state, failures, null, lastFailure)) {
+                this.recordAttempt(attempt, AttemptOutcome.REJECTED, null, waitStart, waitStart);
+                break;
+            }
+
+            long attemptStart = this.recorder != null ? System.nanoTime() : 0L;
+
             try {
                 runnable.run();
 
+                this.recordAttempt(attempt, AttemptOutcome.SUCCESS, null, waitStart, attemptStart);
+                this.onAttemptSucceeded(state);
+
                 if (this.successCListener != null && this.successRListener != null) {
                     System.err.println("Error: Must be a single onSuccess callback");
                 } else if (this.successRListener == null && this.successCListener != null) {
@@ -158,13 +389,28 @@ public class RetryCatch implements ExecutorServiceProvider, ScheduledExecutorSer
 
                 break;
             } catch (Throwable t) {
-                if (!this.retryCatch(t, retries)) {
+                this.recordAttempt(attempt, AttemptOutcome.FAILURE, t, waitStart, attemptStart);
+
+                if (!this.retryCatch(t, retries, state, failures, null)) {
+                    break;
+                }
+
+                lastFailure = t;
+
+                if (executor != null) {
+                    int nextRetries = this.retryCount != INFINITE_TIMES ? retries + 1 : retries;
+                    int nextAttempt = attempt + 1;
+
+                    this.queueRetry(executor, () -> this.runWithState(runnable, state, failures, nextRetries,
+                            nextAttempt, executor, deadlineNanos, t), nextAttempt, deadlineNanos, (Exception) t, failures);
                     break;
                 }
             } finally {
                 if (this.retryCount != INFINITE_TIMES) {
                     retries++;
                 }
+
+                attempt++;
             }
         }
     }
@@ -180,7 +426,7 @@ public class RetryCatch implements ExecutorServiceProvider, ScheduledExecutorSer
     public void execute(CheckedRunnable runnable) {
         if (this.executorService != null) {
             if (!(this.executorService instanceof ScheduledExecutorService)) {
-                this.executorService.execute(() -> this.run(runnable));
+                this.executeWithState(runnable, this.retryState);
             } else {
                 System.err.println("Error: You should use ThreadExecutor or ThreadPoolExecutor in order to use execute() method");
             }
@@ -201,7 +447,54 @@ public class RetryCatch implements ExecutorServiceProvider, ScheduledExecutorSer
     public <T> void submit(CheckedCallable<T> callable) {
         if (this.executorService != null) {
             if (!(this.executorService instanceof ScheduledExecutorService)) {
-                this.executorService.submit(() -> this.call(callable));
+                this.submitWithState(callable, this.retryState);
+            } else {
+                System.err.println("Error: You should use ThreadExecutor or ThreadPoolExecutor in order to use submit() method");
+            }
+        } else {
+            System.err.println("Error: You must create an ExecutorService in order to use submit() method");
+        }
+    }
+
+    /**
+     * Executes a runnable (asynchronous) via ExecutorService with the circuit breaker,
+     * retry budget and metrics of the given key.
+     *
+     * @param key      the key (shard, tenant...) of the task, must not be null
+     * @param runnable the task to execute
+     */
+    public void execute(Object key, CheckedRunnable runnable) {
+        if (this.executorService != null) {
+            if (!(this.executorService instanceof ScheduledExecutorService)) {
+                RetryState state = this.keyedStateOf(key);
+
+                if (state != null) {
+                    this.executeWithState(runnable, state);
+                }
+            } else {
+                System.err.println("Error: You should use ThreadExecutor or ThreadPoolExecutor in order to use execute() method");
+            }
+        } else {
+            System.err.println("Error: You must create an ExecutorService in order to use execute() method");
+        }
+    }
+
+    /**
+     * Executes a callable (asynchronous) via ExecutorService with the circuit breaker,
+     * retry budget and metrics of the given key.
+     *
+     * @param key      the key (shard, tenant...) of the call, must not be null
+     * @param callable the function to execute
+     * @param <T>      the type of the returned value
+     */
+    public <T> void submit(Object key, CheckedCallable<T> callable) {
+        if (this.executorService != null) {
+            if (!(this.executorService instanceof ScheduledExecutorService)) {
+                RetryState state = this.keyedStateOf(key);
+
+                if (state != null) {
+                    this.submitWithState(callable, state);
+                }
             } else {
                 System.err.println("Error: You should use ThreadExecutor or ThreadPoolExecutor in order to use submit() method");
             }
@@ -210,6 +503,82 @@ public class RetryCatch implements ExecutorServiceProvider, ScheduledExecutorSer
         }
     }
 
+    /**
+     * Executes a runnable on the ExecutorService, with a PriorityRetryExecutor
+     * the first attempt is queued as a first attempt and every retry is queued again by its attempt number.
+     *
+     * @param runnable the task to execute
+     * @param state    the circuit breaker, retry budget and metrics of the task
+     */
+    private void executeWithState(CheckedRunnable runnable, RetryState state) {
+        if (this.executorService instanceof PriorityRetryExecutor) {
+            PriorityRetryExecutor executor = (PriorityRetryExecutor) this.executorService;
+            long deadlineNanos = this.retryDeadlineFromNow();
+
+            executor.execute(() -> this.runWithState(runnable, state, this.newFailureAggregator(), 0, 0, executor, deadlineNanos,
+                    null));
+        } else {
+            this.executorService.execute(() -> this.runWithState(runnable, state));
+        }
+    }
+
+    /**
+     * Submits a callable to the ExecutorService, with a PriorityRetryExecutor
+     * the first attempt is queued as a first attempt and every retry is queued again by its attempt number.
+     *
+     * @param callable the function to execute
+     * @param state    the circuit breaker, retry budget and metrics of the call
+     * @param <T>      the type of the returned value
+     */
+    private <T> void submitWithState(CheckedCallable<T> callable, RetryState state) {
+        if (this.executorService instanceof PriorityRetryExecutor) {
+            PriorityRetryExecutor executor = (PriorityRetryExecutor) this.executorService;
+            long deadlineNanos = this.retryDeadlineFromNow();
+
+            executor.execute(() -> this.callWithState(callable, state, this.newFailureAggregator(), 0, 0, executor,
+                    deadlineNanos, null, null));
+        } else {
+            this.executorService.submit(() -> this.callWithState(callable, state));
+        }
+    }
+
+    /**
+     * Queues a retry on a PriorityRetryExecutor, when the retry deadline passes while the retry is queued
+     * (or the executor sheds or rejects it) the retry is dropped and the fail callback gets the last failure.
+     *
+     * @param executor      the executor to queue the retry on
+     * @param retry         the retry to execute
+     * @param attempt       the attempt number of the retry
+     * @param deadlineNanos the deadline of the retry
+     * @param exception     the failure of the previous attempt
+     * @param failures      the failures of the previous attempts, or null when failures aggregation is disabled
+     */
+    private void queueRetry(PriorityRetryExecutor executor, Runnable retry, int attempt, long deadlineNanos,
+                            Exception exception, FailureAggregator failures) {
+        Runnable onDropped = () -> this.fail(exception, failures, null);
+
+        try {
+            executor.execute(retry, attempt, deadlineNanos, onDropped);
+        } catch (RejectedExecutionException e) {
+            onDropped.run();
+        }
+    }
+
+    /**
+     * @return the System.nanoTime() deadline of retries submitted now, or PrioritizedTask.NO_DEADLINE
+     */
+    private long retryDeadlineFromNow() {
+        return this.retryDeadlineNanos > 0 ? System.nanoTime() + this.retryDeadlineNanos : PrioritizedTask.NO_DEADLINE;
+    }
+
+    /**
+     * @return a new failure aggregator for an execution, or null when failures aggregation is disabled
+     */
+    private FailureAggregator newFailureAggregator() {
+        return this.aggregateFailures ?
+                new FailureAggregator(this.keepFirstFailures, this.keepLastFailures, this.collapseRepeatedFailures) : null;
+    }
+
     /**
      * Executes a callable (asynchronous) that becomes enabled after the
      * given delay Using schedule method of provided ExecutorService,
@@ -403,39 +772,391 @@ public class RetryCatch implements ExecutorServiceProvider, ScheduledExecutorSer
         return this;
     }
 
+    /**
+     * Initializing a rate limiter that every attempt has to acquire a permit from,
+     * the same rate limiter can be shared between several RetryCatch instances
+     * in order to cap the total attempts rate towards a single dependency.
+     *
+     * @param limiter the rate limiter to acquire permits from
+     * @return this instance in order to keep initializing
+     */
+    public RetryCatch withRateLimiter(RateLimiter limiter) {
+        this.rateLimiter = limiter;
+
+        return this;
+    }
+
+    /**
+     * Initializing a circuit breaker that rejects attempts while it is open,
+     * the same circuit breaker can be shared between several RetryCatch instances.
+     *
+     * @param breaker the circuit breaker to consult before every attempt
+     * @return this instance in order to keep initializing
+     */
+    public RetryCatch withCircuitBreaker(CircuitBreaker breaker) {
+        this.retryState = new RetryState(breaker, this.retryState.getRetryBudget(), this.retryState.getMetrics());
+
+        return this;
+    }
+
+    /**
+     * Initializing a retry budget that every retry (not the first attempt) withdraws a token from,
+     * the same retry budget can be shared between several RetryCatch instances.
+     *
+     * @param budget the retry budget to withdraw from
+     * @return this instance in order to keep initializing
+     */
+    public RetryCatch withRetryBudget(RetryBudget budget) {
+        this.retryState = new RetryState(this.retryState.getCircuitBreaker(), budget, this.retryState.getMetrics());
+
+        return this;
+    }
+
+    /**
+     * Initializing attempt metrics that count the attempts, successes, failures, retries and rejections
+     * of calls without a key (keyed calls are counted per key, see KeyedRetryState).
+     *
+     * @param metrics the metrics to update
+     * @return this instance in order to keep initializing
+     */
+    public RetryCatch withMetrics(AttemptMetrics metrics) {
+        this.retryState = new RetryState(this.retryState.getCircuitBreaker(), this.retryState.getRetryBudget(), metrics);
+
+        return this;
+    }
+
+    /**
+     * Initializing per key state in order to execute keyed calls (call, run, submit and execute with a key),
+     * every key gets its own circuit breaker, retry budget and metrics,
+     * keys that are not of the state key type are rejected.
+     *
+     * @param state the per key state
+     * @return this instance in order to keep initializing
+     */
+    public RetryCatch withKeyedState(KeyedRetryState<?> state) {
+        this.keyedRetryState = state;
+
+        return this;
+    }
+
+    /**
+     * Initializing the deadline of retries queued on a PriorityRetryExecutor,
+     * a retry that is still queued when the deadline (measured from the submission) passes is dropped
+     * and the fail callback gets the last failure.
+     * Without a deadline, queued retries may wait as long as fresh tasks keep the executor busy
+     * (until the executor sheds them, see PriorityRetryExecutor).
+     *
+     * @param timeout the time from the submission after which queued retries are dropped
+     * @param unit    the time unit of the timeout parameter
+     * @return this instance in order to keep initializing
+     */
+    public RetryCatch retryDeadline(long timeout, TimeUnit unit) {
+        this.retryDeadlineNanos = unit.toNanos(Math.abs(timeout));
+
+        return this;
+    }
+
+    /**
+     * Initializing failures aggregation, the failure callback gets a RetryFailedException
+     * with the terminal exception as a cause, the first and the last failures before it as suppressed exceptions
+     * and the failure counts by type, all the other failures are counted but not kept in memory.
+     *
+     * @param keepFirst the amount of first failures to keep
+     * @param keepLast  the amount of last failures to keep (not counting the terminal exception)
+     * @return this instance in order to keep initializing
+     */
+    public RetryCatch aggregateFailures(int keepFirst, int keepLast) {
+        return this.aggregateFailures(keepFirst, keepLast, false);
+    }
+
+    /**
+     * Initializing failures aggregation (see aggregateFailures(int, int)),
+     * optionally keeps a single failure (the first one) for a run of identical (type and message) failures,
+     * the repeated ones are not held in memory, the failures themselves are never modified.
+     *
+     * @param keepFirst        the amount of first failures to keep
+     * @param keepLast         the amount of last failures to keep (not counting the terminal exception)
+     * @param collapseRepeated true in order to keep a single failure for a run of repeated identical failures
+     * @return this instance in order to keep initializing
+     */
+    public RetryCatch aggregateFailures(int keepFirst, int keepLast, boolean collapseRepeated) {
+        this.aggregateFailures = true;
+        this.keepFirstFailures = Math.abs(keepFirst);
+        this.keepLastFailures = Math.abs(keepLast);
+        this.collapseRepeatedFailures = collapseRepeated;
+
+        return this;
+    }
+
+    /**
+     * Initializing an attempt recorder that records every attempt (first attempt and retries)
+     * with its outcome, wait time and duration, as JFR events and/or into a ring buffer.
+     *
+     * @param attemptRecorder the recorder, may be shared between several RetryCatch instances
+     * @return this instance in order to keep initializing
+     */
+    public RetryCatch withRecorder(AttemptRecorder attemptRecorder) {
+        this.recorder = attemptRecorder;
+
+        return this;
+    }
+
+    /**
+     * Records an attempt when there is a recorder.
+     *
+     * @param attempt      the attempt number, 0 for the first attempt
+     * @param outcome      the outcome of the attempt
+     * @param exception    the threw exception, or null
+     * @param waitStart    System.nanoTime() before the circuit breaker and the rate limiter
+     * @param attemptStart System.nanoTime() before the attempt execution (equal to waitStart when rejected)
+     */
+    private void recordAttempt(int attempt, AttemptOutcome outcome, Throwable exception, long waitStart, long attemptStart) {
+        if (this.recorder == null) {
+            return;
+        }
+
+        if (outcome == AttemptOutcome.REJECTED) {
+            this.recorder.record(attempt, outcome, null, System.nanoTime() - waitStart, 0L);
+        } else {
+            this.recorder.record(attempt, outcome, exception, attemptStart - waitStart, System.nanoTime() - attemptStart);
+        }
+    }
+
+    /**
+     * Gets the state of a key from the per key state.
+     *
+     * @param key the key of the call
+     * @return the state of the key, or null if there is no per key state or the key is null (or of another type)
+     */
+    private RetryState keyedStateOf(Object key) {
+        if (this.keyedRetryState == null) {
+            System.err.println("Error: You must initialize a KeyedRetryState via withKeyedState() in order to execute keyed calls");
+
+            return null;
+        }
+
+        if (key == null) {
+            System.err.println("Error: The key of a keyed call must not be null");
+
+            return null;
+        }
+
+        if (!this.keyedRetryState.getKeyType().isInstance(key)) {
+            System.err.println("Error: The key of a keyed call must be a " + this.keyedRetryState.getKeyType().getName() +
+                    ", got a " + key.getClass().getName());
+
+            return null;
+        }
+
+        return stateOf(this.keyedRetryState, key);
+    }
+
+    /**
+     * @param keyedState the per key state
+     * @param key        a key, already checked to be of the state key type
+     * @param <K>        the type of the keys
+     * @return the state of the key
+     */
+    private static <K> RetryState stateOf(KeyedRetryState<K> keyedState, Object key) {
+        return keyedState.get(keyedState.getKeyType().cast(key));
+    }
+
+    /**
+     * Consults the circuit breaker and acquires a permit from the rate limiter (if any) before an attempt,
+     * executes the fail callback with a CircuitOpenException or a RateLimitExceededException
+     * (caused by the previous failure, if any) when the attempt is rejected.
+     *
+     * @param state       the circuit breaker and metrics of the call
+     * @param failures    the failures of the previous attempts, or null when failures aggregation is disabled
+     * @param invocation  captures the terminal failure for invoke(), or null
+     * @param lastFailure the failure of the previous attempt, or null before the first attempt
+     * @return true if the attempt may be executed, otherwise false
+     */
+    private boolean isAttemptPermitted(RetryState state, FailureAggregator failures, Invocation<?> invocation,
+                                       Throwable lastFailure) {
+        CircuitBreaker breaker = state.getCircuitBreaker();
+        AttemptMetrics metrics = state.getMetrics();
+        long permission = breaker != null ? breaker.acquirePermission() : CircuitBreaker.CLOSED;
+
+        if (permission == CircuitBreaker.REJECTED) {
+            if (metrics != null) {
+                metrics.recordRejection();
+            }
+
+            this.fail(new CircuitOpenException(lastFailure), failures, invocation);
+
+            return false;
+        }
+
+        if (this.rateLimiter != null && !this.rateLimiter.acquirePermission()) {
+            // The attempt is not executed, a won trial attempt goes back to the next caller
+            if (breaker != null) {
+                breaker.releasePermission(permission);
+            }
+
+            if (metrics != null) {
+                metrics.recordRejection();
+            }
+
+            this.fail(new RateLimitExceededException(lastFailure), failures, invocation);
+
+            return false;
+        }
+
+        if (metrics != null) {
+            metrics.recordAttempt();
+        }
+
+        return true;
+    }
+
+    /**
+     * Records a successful attempt in the circuit breaker, the retry budget and the metrics (if any).
+     *
+     * @param state the circuit breaker, retry budget and metrics of the call
+     */
+    private void onAttemptSucceeded(RetryState state) {
+        if (state.getCircuitBreaker() != null) {
+            state.getCircuitBreaker().onSuccess();
+        }
+
+        if (state.getRetryBudget() != null) {
+            state.getRetryBudget().deposit();
+        }
+
+        if (state.getMetrics() != null) {
+            state.getMetrics().recordSuccess();
+        }
+    }
+
+    /**
+     * Withdraws a token from the retry budget (if any) before a retry.
+     *
+     * @param state the retry budget of the call
+     * @return true if the retry is within the budget, otherwise false
+     */
+    private boolean isRetryWithinBudget(RetryState state) {
+        return state.getRetryBudget() == null || state.getRetryBudget().tryWithdraw();
+    }
+
     /**
      * Determined if RetryCatch should keep processing the task,
-     * checks if the threw exception is one of the exceptions that RetryCatch should take care
-     * and checks if we are not at the max retry count.
+     * checks if the threw exception is one of the exceptions that RetryCatch should take care,
+     * checks if we are not at the max retry count and if the retry is within the retry budget.
      * Executes a retry callback and fail callback when needed.
      *
-     * @param exception the threw exception
-     * @param retries   the current retry counter
+     * @param exception  the threw exception
+     * @param retries    the current retry counter
+     * @param state      the circuit breaker, retry budget and metrics of the call
+     * @param failures   the failures of the previous attempts, or null when failures aggregation is disabled
+     * @param invocation captures the terminal failure for invoke(), or null
      * @return true if RetryCatch should keep processing, otherwise false
      */
-    private boolean retryCatch(Throwable exception, int retries) {
+    private boolean retryCatch(Throwable exception, int retries, RetryState state, FailureAggregator failures,
+                               Invocation<?> invocation) {
         if (exception instanceof Exception) {
+            if (state.getMetrics() != null) {
+                state.getMetrics().recordFailure();
+            }
+
+            if (failures != null) {
+                failures.add(exception);
+            }
+
+            // Every failed attempt counts towards the circuit, retried or not
+            if (state.getCircuitBreaker() != null) {
+                state.getCircuitBreaker().onError();
+            }
+
             if (this.isRetryable(exception)) {
-                if (this.retryCount == INFINITE_TIMES) {
-                    if (this.retryListener != null) {
-                        this.retryListener.accept(retries, (Exception) exception);
-                    }
+                if (this.retryCount == INFINITE_TIMES && this.isRetryWithinBudget(state)) {
+                    this.onRetrying(retries, (Exception) exception, state);
 
                     return true;
-                } else if (retries < this.retryCount) {
-                    if (this.retryListener != null) {
-                        this.retryListener.accept(retries, (Exception) exception);
-                    }
+                } else if (retries < this.retryCount && this.isRetryWithinBudget(state)) {
+                    this.onRetrying(retries, (Exception) exception, state);
 
                     return true;
-                } else if (this.failListener != null) {
-                    this.failListener.accept((Exception) exception);
+                } else {
+                    this.fail((Exception) exception, failures, invocation);
                 }
-            } else if (this.failListener != null) {
-                this.failListener.accept((Exception) exception);
+            } else {
+                this.fail((Exception) exception, failures, invocation);
             }
+        } else if (invocation != null) {
+            invocation.failure = exception;
         }
 
         return false;
     }
-}
+
+    /**
+     * Ends an execution with a failure, executes the fail callback
+     * and captures the failure for invoke().
+     *
+     * @param exception  the exception that ended the execution
+     * @param failures   the failures of all the attempts, or null when failures aggregation is disabled
+     * @param invocation captures the terminal failure for invoke(), or null
+     */
+    private void fail(Exception exception, FailureAggregator failures, Invocation<?> invocation) {
+        if (this.failListener == null && invocation == null) {
+            return;
+        }
+
+        Exception failure = this.terminalFailure(exception, failures);
+
+        if (invocation != null) {
+            invocation.failure = failure;
+        }
+
+        if (this.failListener != null) {
+            this.failListener.accept(failure);
+        }
+    }
+
+    /**
+     * Creates the exception to pass to the failure callback.
+     *
+     * @param exception the exception that ended the execution
+     * @param failures  the failures of all the attempts, or null when failures aggregation is disabled
+     * @return a RetryFailedException when failures aggregation is enabled, otherwise the exception itself
+     */
+    private Exception terminalFailure(Exception exception, FailureAggregator failures) {
+        return failures != null ? failures.toException(exception) : exception;
+    }
+
+    /**
+     * Records a retry in the metrics (if any) and executes the retry callback.
+     *
+     * @param retries   the current retry counter
+     * @param exception the threw exception
+     * @param state     the metrics of the call
+     */
+    private void onRetrying(int retries, Exception exception, RetryState state) {
+        if (state.getMetrics() != null) {
+            state.getMetrics().recordRetry();
+        }
+
+        if (this.retryListener != null) {
+            this.retryListener.accept(retries, exception);
+        }
+    }
+
+    /**
+     * The outcome of a single invoke() execution.
+     *
+     * @param <T> the type of the returned value
+     */
+    private static class Invocation<T> {
+
+        /**
+         * The value returned by the callable.
+         */
+        private T result;
+
+        /**
+         * The terminal failure, null when the execution succeeded.
+         */
+        private Throwable failure;
+    }
+}
\ No newline at end of file
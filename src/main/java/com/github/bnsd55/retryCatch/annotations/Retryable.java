@@ -0,0 +1,36 @@
+package com.github.bnsd55.retryCatch.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an interface to generate a retrying decorator for (see RetryableProcessor),
+ * the generated class is named Retrying followed by the interface name, in the same package,
+ * and wraps every call of the delegate with a RetryCatch policy created once per method.
+ *
+ * On a method of an annotated interface, overrides the interface settings for that method.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Retryable {
+
+    /**
+     * Indicates infinite retry times, the only negative count allowed.
+     */
+    int INFINITE = -1;
+
+    /**
+     * @return the retry times (see RetryCatch#retryCount(int)), or INFINITE,
+     * other negative values are rejected at compile time (RetryCatch would take their absolute value)
+     */
+    int count() default 3;
+
+    /**
+     * @return the exceptions to retry on, see RetryCatch#retryOn(Class[])
+     */
+    Class<? extends Throwable>[] retryOn() default Exception.class;
+}
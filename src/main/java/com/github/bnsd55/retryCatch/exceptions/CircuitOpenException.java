@@ -0,0 +1,20 @@
+package com.github.bnsd55.retryCatch.exceptions;
+
+/**
+ * Thrown (passed to the failure callback) when a CircuitBreaker
+ * is open and the attempt was not executed.
+ */
+public class CircuitOpenException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public CircuitOpenException() {
+        super("Circuit is open, the attempt was not permitted");
+    }
+
+    /**
+     * @param cause the failure of the previous attempt, or null
+     */
+    public CircuitOpenException(Throwable cause) {
+        super("Circuit is open, the attempt was not permitted", cause);
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.bnsd55.retryCatch.exceptions;
+
+/**
+ * Thrown (passed to the failure callback) when a RateLimiter
+ * did not grant a permit for an attempt within its timeout.
+ */
+public class RateLimitExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public RateLimitExceededException() {
+        super("Rate limit exceeded, the attempt was not permitted");
+    }
+
+    /**
+     * @param cause the failure of the previous attempt, or null
+     */
+    public RateLimitExceededException(Throwable cause) {
+        super("Rate limit exceeded, the attempt was not permitted", cause);
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.bnsd55.retryCatch.exceptions;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Passed to the failure callback when failures aggregation is enabled (see RetryCatch#aggregateFailures),
+ * the cause is the terminal exception, the suppressed exceptions are the first and the last
+ * failures before it and the failure counts cover every failed attempt.
+ */
+public class RetryFailedException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final long attempts;
+
+    private final long omitted;
+
+    private final Map<Class<? extends Throwable>, Long> failureCounts;
+
+    /**
+     * Ctor
+     *
+     * @param cause         the terminal exception
+     * @param attempts      the amount of failed attempts
+     * @param omitted       the amount of failures that have not been kept (neither first, last nor terminal)
+     * @param failureCounts the amount of failures by exception type
+     * @param kept          the first and the last failures before the terminal exception
+     */
+    public RetryFailedException(Exception cause, long attempts, long omitted,
+                                Map<Class<? extends Throwable>, Long> failureCounts, List<Throwable> kept) {
+        super("Failed after " + attempts + " attempts" + (omitted > 0 ? " (" + omitted + " failures omitted)" : "") +
+                ", failures by type: " + describe(failureCounts), cause, true, false);
+
+        this.attempts = attempts;
+        this.omitted = omitted;
+        this.failureCounts = Collections.unmodifiableMap(failureCounts);
+
+        for (Throwable failure : kept) {
+            if (failure != cause) {
+                this.addSuppressed(failure);
+            }
+        }
+    }
+
+    /**
+     * @param failureCounts the amount of failures by exception type
+     * @return the failure counts with the simple exception type names, for example {IOException=3}
+     */
+    private static String describe(Map<Class<? extends Throwable>, Long> failureCounts) {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+
+        failureCounts.forEach((type, count) -> joiner.add(type.getSimpleName() + "=" + count));
+
+        return joiner.toString();
+    }
+
+    /**
+     * @return the amount of failed attempts
+     */
+    public long getAttempts() {
+        return this.attempts;
+    }
+
+    /**
+     * @return the amount of failures that have not been kept as suppressed exceptions
+     */
+    public long getOmitted() {
+        return this.omitted;
+    }
+
+    /**
+     * @return the amount of failures by exception type, in order of first appearance
+     */
+    public Map<Class<? extends Throwable>, Long> getFailureCounts() {
+        return this.failureCounts;
+    }
+}
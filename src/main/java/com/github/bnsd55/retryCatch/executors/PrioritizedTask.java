@@ -0,0 +1,109 @@
+package com.github.bnsd55.retryCatch.executors;
+
+/**
+ * A task queued in a PriorityRetryExecutor,
+ * first attempts run before retries, retries run by attempt number and then by deadline.
+ */
+public class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+
+    /**
+     * Indicates a task without a deadline.
+     */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final Runnable task;
+
+    private final int attempt;
+
+    private final long deadlineNanos;
+
+    /**
+     * FIFO order between tasks with the same priority.
+     */
+    private final long sequence;
+
+    private final Runnable onExpired;
+
+    /**
+     * Ctor
+     *
+     * @param task          the task to execute
+     * @param attempt       the attempt number, 0 for a first attempt
+     * @param deadlineNanos the System.nanoTime() deadline of the task, or NO_DEADLINE
+     * @param sequence      the order the task was queued at
+     * @param onExpired     executed instead of the task when the deadline has passed or the task is shed, may be null
+     */
+    PrioritizedTask(Runnable task, int attempt, long deadlineNanos, long sequence, Runnable onExpired) {
+        this.task = task;
+        this.attempt = attempt;
+        this.deadlineNanos = deadlineNanos;
+        this.sequence = sequence;
+        this.onExpired = onExpired;
+    }
+
+    /**
+     * Executes the task, or drops it (executes onExpired) when its deadline has passed while it was queued.
+     */
+    @Override
+    public void run() {
+        if (this.isExpired()) {
+            this.runExpired();
+        } else {
+            this.task.run();
+        }
+    }
+
+    /**
+     * Drops the task, executes onExpired (if any) instead of the task.
+     */
+    void runExpired() {
+        if (this.onExpired != null) {
+            this.onExpired.run();
+        }
+    }
+
+    /**
+     * @return true if the task has a deadline and it has passed, otherwise false
+     */
+    public boolean isExpired() {
+        return this.isExpired(System.nanoTime());
+    }
+
+    /**
+     * @param nowNanos the System.nanoTime() to check the deadline against
+     * @return true if the deadline has passed at the given time, otherwise false
+     */
+    boolean isExpired(long nowNanos) {
+        return this.deadlineNanos != NO_DEADLINE && nowNanos - this.deadlineNanos > 0;
+    }
+
+    public int getAttempt() {
+        return this.attempt;
+    }
+
+    public long getDeadlineNanos() {
+        return this.deadlineNanos;
+    }
+
+    long getSequence() {
+        return this.sequence;
+    }
+
+    @Override
+    public int compareTo(PrioritizedTask other) {
+        if (this.attempt != other.attempt) {
+            return Integer.compare(this.attempt, other.attempt);
+        }
+
+        if (this.deadlineNanos != other.deadlineNanos) {
+            // NO_DEADLINE sorts last, deadlines are compared relatively because System.nanoTime() may overflow
+            if (this.deadlineNanos == NO_DEADLINE || other.deadlineNanos == NO_DEADLINE) {
+                return this.deadlineNanos == NO_DEADLINE ? 1 : -1;
+            }
+
+            return this.deadlineNanos - other.deadlineNanos < 0 ? -1 : 1;
+        }
+
+        return Long.compare(this.sequence, other.sequence);
+    }
+}
@@ -0,0 +1,234 @@
+package com.github.bnsd55.retryCatch.executors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed thread pool that favors first attempts over retries,
+ * when RetryCatch runs on this executor (see RetryCatch#withExecutor) every retry is queued again
+ * as a separate task with its attempt number and deadline, so during an incident
+ * fresh traffic does not wait behind doomed retries, and retries whose deadline
+ * has passed while queued are dropped.
+ *
+ * Tasks queued with execute() or submit() by anyone else are first attempts.
+ *
+ * The priority is strict, as long as first attempts keep the threads busy queued retries do not run at all,
+ * even expired retries stay queued until a thread takes them. So the amount of queued retries is bounded,
+ * when the bound is reached the expired retries, then the retries with the highest attempt numbers
+ * (the oldest first) are shed, a shed retry executes its onExpired task (on the queuing thread) instead of running.
+ * First attempts are not bounded, like in any fixed thread pool.
+ */
+public class PriorityRetryExecutor extends ThreadPoolExecutor {
+
+    /**
+     * The default bound of queued retries per thread in the pool.
+     */
+    public static final int DEFAULT_QUEUED_RETRIES_PER_THREAD = 1000;
+
+    /**
+     * When the queued retries bound is reached, this fraction of the bound is shed at once.
+     */
+    private static final int SHED_BATCH_DIVISOR = 8;
+
+    /**
+     * The queue order of tasks with the same priority.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * The amount of retries (attempt above 0) queued and not started yet.
+     */
+    private final AtomicInteger queuedRetries = new AtomicInteger();
+
+    /**
+     * Prevents concurrent shedding, losers skip the shedding instead of waiting.
+     */
+    private final AtomicBoolean shedding = new AtomicBoolean();
+
+    private final int maxQueuedRetries;
+
+    /**
+     * Ctor
+     *
+     * @param threads the amount of threads in the pool
+     */
+    public PriorityRetryExecutor(int threads) {
+        this(threads, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Ctor
+     *
+     * @param threads       the amount of threads in the pool
+     * @param threadFactory the factory to use when the executor creates a new thread
+     */
+    public PriorityRetryExecutor(int threads, ThreadFactory threadFactory) {
+        this(threads, threads * DEFAULT_QUEUED_RETRIES_PER_THREAD, threadFactory);
+    }
+
+    /**
+     * Ctor
+     *
+     * @param threads          the amount of threads in the pool
+     * @param maxQueuedRetries the max amount of queued retries, beyond it retries are shed
+     * @param threadFactory    the factory to use when the executor creates a new thread
+     */
+    public PriorityRetryExecutor(int threads, int maxQueuedRetries, ThreadFactory threadFactory) {
+        super(threads, threads, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), threadFactory);
+
+        if (maxQueuedRetries <= 0) {
+            throw new IllegalArgumentException("maxQueuedRetries must be positive");
+        }
+
+        this.maxQueuedRetries = maxQueuedRetries;
+    }
+
+    /**
+     * Executes a task as a first attempt without a deadline.
+     *
+     * @param command the task to execute
+     */
+    @Override
+    public void execute(Runnable command) {
+        if (command instanceof PrioritizedTask) {
+            super.execute(command);
+        } else {
+            this.execute(command, 0, PrioritizedTask.NO_DEADLINE, null);
+        }
+    }
+
+    /**
+     * Executes a task with a priority.
+     *
+     * @param command       the task to execute
+     * @param attempt       the attempt number, 0 for a first attempt, lower attempt numbers run first
+     * @param deadlineNanos the System.nanoTime() deadline of the task, or PrioritizedTask.NO_DEADLINE
+     * @param onExpired     executed instead of the task when the deadline has passed or the task is shed, may be null
+     */
+    public void execute(Runnable command, int attempt, long deadlineNanos, Runnable onExpired) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+
+        PrioritizedTask task = new PrioritizedTask(command, attempt, deadlineNanos, this.sequence.getAndIncrement(), onExpired);
+
+        if (attempt > 0 && this.queuedRetries.incrementAndGet() > this.maxQueuedRetries && this.shed(task)) {
+            task.runExpired();
+
+            return;
+        }
+
+        try {
+            super.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (attempt > 0) {
+                this.queuedRetries.decrementAndGet();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * @return the amount of retries queued and not started yet
+     */
+    public int getQueuedRetries() {
+        return this.queuedRetries.get();
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable runnable) {
+        if (runnable instanceof PrioritizedTask && ((PrioritizedTask) runnable).getAttempt() > 0) {
+            this.queuedRetries.decrementAndGet();
+        }
+
+        super.beforeExecute(thread, runnable);
+    }
+
+    /**
+     * The shedding order, expired retries first, then the highest attempt numbers, then the oldest.
+     *
+     * @param nowNanos the System.nanoTime() the expiry of every retry is evaluated at,
+     *                 a single instant keeps the order consistent during the sort
+     * @return the shedding order
+     */
+    private static Comparator<PrioritizedTask> shedOrder(long nowNanos) {
+        return Comparator.<PrioritizedTask, Boolean>comparing(task -> task.isExpired(nowNanos)).reversed()
+                .thenComparing(Comparator.comparingInt(PrioritizedTask::getAttempt).reversed())
+                .thenComparingLong(PrioritizedTask::getSequence);
+    }
+
+    /**
+     * Sheds a batch of queued retries (see shedOrder), the incoming retry competes with the queued ones,
+     * a concurrent caller skips the shedding so the bound may briefly be exceeded.
+     *
+     * The queue is drained in a single pass under its lock and the remaining tasks are queued again,
+     * instead of removing every shed retry separately (a linear scan under the lock per retry).
+     *
+     * @param incoming the retry being queued, already counted in queuedRetries
+     * @return true if the incoming retry has been shed and must not be queued, otherwise false
+     */
+    private boolean shed(PrioritizedTask incoming) {
+        if (!this.shedding.compareAndSet(false, true)) {
+            return false;
+        }
+
+        // By identity, tasks do not override equals
+        Set<Runnable> shed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        try {
+            List<Runnable> queued = new ArrayList<>();
+            List<PrioritizedTask> candidates = new ArrayList<>();
+
+            this.getQueue().drainTo(queued);
+
+            for (Runnable runnable : queued) {
+                if (runnable instanceof PrioritizedTask && ((PrioritizedTask) runnable).getAttempt() > 0) {
+                    candidates.add((PrioritizedTask) runnable);
+                }
+            }
+
+            candidates.add(incoming);
+            candidates.sort(shedOrder(System.nanoTime()));
+
+            int batch = this.queuedRetries.get() - this.maxQueuedRetries + this.maxQueuedRetries / SHED_BATCH_DIVISOR;
+
+            for (int i = 0; i < candidates.size() && i < batch; i++) {
+                shed.add(candidates.get(i));
+            }
+
+            // Queued again in a priority queue, so the order of the remaining tasks does not change
+            for (Runnable runnable : queued) {
+                if (!shed.contains(runnable)) {
+                    this.getQueue().add(runnable);
+                }
+            }
+        } finally {
+            this.shedding.set(false);
+        }
+
+        for (Runnable task : shed) {
+            this.queuedRetries.decrementAndGet();
+
+            // The incoming retry is not queued yet, the caller drops it
+            if (task != incoming) {
+                ((PrioritizedTask) task).runExpired();
+            }
+        }
+
+        return shed.contains(incoming);
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.bnsd55.retryCatch.interfaces;
+
+/**
+ * The time source of the time based policies (RateLimiter, CircuitBreaker),
+ * SystemClock in production and VirtualClock in simulations.
+ */
+public interface Clock {
+
+    /**
+     * @return the current value of a monotonic time source, in nanoseconds
+     * @see System#nanoTime()
+     */
+    long nanoTime();
+
+    /**
+     * @return the current wall clock time, in milliseconds since the epoch
+     * @see System#currentTimeMillis()
+     */
+    long currentTimeMillis();
+
+    /**
+     * Waits for the given time, returns earlier when the current thread is interrupted.
+     *
+     * @param nanos the time to wait, in nanoseconds
+     * @see java.util.concurrent.locks.LockSupport#parkNanos(long)
+     */
+    void parkNanos(long nanos);
+}
@@ -0,0 +1,43 @@
+package com.github.bnsd55.retryCatch.interfaces;
+
+/**
+ * A fixed amount of atomically updated long slots,
+ * holds the counters of policies such as CircuitBreaker and RetryBudget
+ * so the same policy state can live in memory or be shared between processes.
+ */
+public interface StateStore {
+
+    /**
+     * @return the amount of slots in the store
+     */
+    int size();
+
+    /**
+     * @param slot the slot index
+     * @return the current value of the slot (volatile read)
+     */
+    long get(int slot);
+
+    /**
+     * @param slot  the slot index
+     * @param value the new value of the slot (volatile write)
+     */
+    void set(int slot, long value);
+
+    /**
+     * @param slot   the slot index
+     * @param expect the expected value
+     * @param update the new value
+     * @return true if the slot held the expected value and was updated, otherwise false
+     * @see java.util.concurrent.atomic.AtomicLongArray#compareAndSet(int, long, long)
+     */
+    boolean compareAndSet(int slot, long expect, long update);
+
+    /**
+     * @param slot  the slot index
+     * @param delta the value to add
+     * @return the previous value of the slot
+     * @see java.util.concurrent.atomic.AtomicLongArray#getAndAdd(int, long)
+     */
+    long getAndAdd(int slot, long delta);
+}
@@ -0,0 +1,84 @@
+package com.github.bnsd55.retryCatch.policies;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Attempt counters of a RetryCatch (or of a single key, see KeyedRetryState),
+ * counters are LongAdders so concurrent updates do not contend.
+ */
+public class AttemptMetrics {
+
+    /**
+     * Executed attempts (first attempts and retries).
+     */
+    private final LongAdder attempts = new LongAdder();
+
+    /**
+     * Attempts that succeeded.
+     */
+    private final LongAdder successes = new LongAdder();
+
+    /**
+     * Attempts that threw an exception.
+     */
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Failed attempts that have been retried.
+     */
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * Attempts that have not been executed because of an open circuit or the rate limiter.
+     */
+    private final LongAdder rejections = new LongAdder();
+
+    public void recordAttempt() {
+        this.attempts.increment();
+    }
+
+    public void recordSuccess() {
+        this.successes.increment();
+    }
+
+    public void recordFailure() {
+        this.failures.increment();
+    }
+
+    public void recordRetry() {
+        this.retries.increment();
+    }
+
+    public void recordRejection() {
+        this.rejections.increment();
+    }
+
+    public long getAttempts() {
+        return this.attempts.sum();
+    }
+
+    public long getSuccesses() {
+        return this.successes.sum();
+    }
+
+    public long getFailures() {
+        return this.failures.sum();
+    }
+
+    public long getRetries() {
+        return this.retries.sum();
+    }
+
+    public long getRejections() {
+        return this.rejections.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "AttemptMetrics{attempts=" + this.getAttempts() +
+                ", successes=" + this.getSuccesses() +
+                ", failures=" + this.getFailures() +
+                ", retries=" + this.getRetries() +
+                ", rejections=" + this.getRejections() + "}";
+    }
+}
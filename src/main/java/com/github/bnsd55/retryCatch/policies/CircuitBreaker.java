@@ -0,0 +1,190 @@
+package com.github.bnsd55.retryCatch.policies;
+
+import com.github.bnsd55.retryCatch.interfaces.Clock;
+import com.github.bnsd55.retryCatch.interfaces.StateStore;
+import com.github.bnsd55.retryCatch.state.AtomicStateStore;
+import com.github.bnsd55.retryCatch.utilities.SystemClock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A consecutive-failures circuit breaker,
+ * opens after the failure threshold is reached and rejects attempts until the open duration passes,
+ * then lets a single trial attempt through (half open), a success closes the circuit again.
+ *
+ * The state lives in a StateStore, by default in memory,
+ * use a MappedStateStore in order to share the circuit between processes.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The amount of StateStore slots a circuit breaker uses.
+     */
+    public static final int SLOTS = 2;
+
+    /**
+     * The permission of an attempt through a closed circuit.
+     */
+    public static final long CLOSED = 0;
+
+    /**
+     * The permission of a rejected attempt.
+     */
+    public static final long REJECTED = -1;
+
+    /**
+     * The amount of consecutive failures.
+     */
+    private static final int FAILURES = 0;
+
+    /**
+     * The time (epoch millis) the circuit has been opened at, 0 when the circuit is closed.
+     * Wall clock time is used because System.nanoTime() is not comparable between processes.
+     */
+    private static final int OPENED_AT = 1;
+
+    /**
+     * The amount of consecutive failures that opens the circuit.
+     */
+    private final int failureThreshold;
+
+    /**
+     * How long (in milliseconds) the circuit stays open before a trial attempt is permitted.
+     */
+    private final long openDurationMillis;
+
+    /**
+     * Holds the circuit state.
+     */
+    private final StateStore store;
+
+    /**
+     * The time source, SystemClock unless simulated.
+     */
+    private final Clock clock;
+
+    /**
+     * Ctor, creates an in-memory circuit breaker.
+     *
+     * @param failureThreshold the amount of consecutive failures that opens the circuit
+     * @param openDuration     how long the circuit stays open
+     * @param unit             the time unit of the openDuration parameter
+     */
+    public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+        this(failureThreshold, openDuration, unit, new AtomicStateStore(SLOTS));
+    }
+
+    /**
+     * Ctor
+     *
+     * @param failureThreshold the amount of consecutive failures that opens the circuit
+     * @param openDuration     how long the circuit stays open
+     * @param unit             the time unit of the openDuration parameter
+     * @param store            holds the circuit state, must have at least SLOTS slots
+     */
+    public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit, StateStore store) {
+        this(failureThreshold, openDuration, unit, store, SystemClock.INSTANCE);
+    }
+
+    /**
+     * Ctor
+     *
+     * @param failureThreshold the amount of consecutive failures that opens the circuit
+     * @param openDuration     how long the circuit stays open
+     * @param unit             the time unit of the openDuration parameter
+     * @param store            holds the circuit state, must have at least SLOTS slots
+     * @param clock            the time source, for example a VirtualClock in simulations
+     */
+    public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit, StateStore store, Clock clock) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("failureThreshold must be positive");
+        }
+
+        if (store.size() < SLOTS) {
+            throw new IllegalArgumentException("store must have at least " + SLOTS + " slots");
+        }
+
+        this.failureThreshold = failureThreshold;
+        this.openDurationMillis = unit.toMillis(Math.abs(openDuration));
+        this.store = store;
+        this.clock = clock;
+    }
+
+    /**
+     * Checks if an attempt may be executed,
+     * when the open duration has passed a single caller wins the trial attempt.
+     *
+     * @return true if the circuit is closed or the caller got the trial attempt, otherwise false
+     */
+    public boolean isCallPermitted() {
+        return this.acquirePermission() != REJECTED;
+    }
+
+    /**
+     * Checks if an attempt may be executed, like isCallPermitted(),
+     * the returned permission lets a caller that does not execute the attempt after all release its trial attempt.
+     *
+     * @return CLOSED if the circuit is closed, REJECTED if the attempt is not permitted,
+     * otherwise the caller got the trial attempt (the trial time)
+     */
+    public long acquirePermission() {
+        long openedAt = this.store.get(OPENED_AT);
+
+        if (openedAt == 0) {
+            return CLOSED;
+        }
+
+        long now = this.clock.currentTimeMillis();
+
+        // Re-arming the open window lets a single trial attempt through per open duration
+        if (now - openedAt >= this.openDurationMillis && this.store.compareAndSet(OPENED_AT, openedAt, now)) {
+            return now;
+        }
+
+        return REJECTED;
+    }
+
+    /**
+     * Releases a trial attempt that has not been executed (for example rejected by a rate limiter),
+     * so the next caller gets the trial instead of waiting another open duration.
+     *
+     * @param permission the permission returned by acquirePermission()
+     */
+    public void releasePermission(long permission) {
+        if (permission != CLOSED && permission != REJECTED) {
+            this.store.compareAndSet(OPENED_AT, permission, permission - this.openDurationMillis);
+        }
+    }
+
+    /**
+     * Records a successful attempt, closes the circuit.
+     */
+    public void onSuccess() {
+        // Avoid writing shared memory on the hot path when there is nothing to reset
+        if (this.store.get(FAILURES) != 0) {
+            this.store.set(FAILURES, 0);
+        }
+
+        if (this.store.get(OPENED_AT) != 0) {
+            this.store.set(OPENED_AT, 0);
+        }
+    }
+
+    /**
+     * Records a failed attempt, opens the circuit when the failure threshold is reached.
+     */
+    public void onError() {
+        long failures = this.store.getAndAdd(FAILURES, 1) + 1;
+
+        if (failures >= this.failureThreshold) {
+            this.store.compareAndSet(OPENED_AT, 0, this.clock.currentTimeMillis());
+        }
+    }
+
+    /**
+     * @return true if the circuit is open (or half open), otherwise false
+     */
+    public boolean isOpen() {
+        return this.store.get(OPENED_AT) != 0;
+    }
+}
@@ -0,0 +1,194 @@
+package com.github.bnsd55.retryCatch.policies;
+
+import com.github.bnsd55.retryCatch.interfaces.Clock;
+import com.github.bnsd55.retryCatch.utilities.SystemClock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free rate limiter that caps the amount of attempts per period,
+ * a single instance can be shared between any number of RetryCatch instances
+ * in order to limit the total attempts rate towards a single dependency.
+ *
+ * Permits are reserved with a compare-and-set on a single "next free permit" timestamp,
+ * so there is no central lock and no background thread refilling permits.
+ *
+ * By default permits are evenly spaced (one per period / permits), so no window of a period
+ * sees more than the configured permits. A burst allows that many extra permits at once after an idle time
+ * (token bucket behaviour), a window of a period may then see up to permits + burst attempts.
+ */
+public class RateLimiter {
+
+    /**
+     * Indicates that the caller should wait for a permit as long as needed,
+     * under sustained overload the wait (and the permits booked ahead) grows without a limit.
+     */
+    public static final long WAIT_FOREVER = Long.MAX_VALUE;
+
+    /**
+     * The time (in nanoseconds) between two successive permits.
+     */
+    private final long permitIntervalNanos;
+
+    /**
+     * How far (in nanoseconds) the next free permit may be ahead of now
+     * and still be granted without waiting, burst permits intervals.
+     */
+    private final long burstNanos;
+
+    /**
+     * The max time (in nanoseconds) a caller waits for a permit before being rejected,
+     * 0 means reject immediately when there is no free permit.
+     */
+    private final long timeoutNanos;
+
+    /**
+     * The time (Clock.nanoTime() based) at which the next permit becomes free.
+     */
+    private final AtomicLong nextFreePermit;
+
+    /**
+     * The time source, SystemClock unless simulated.
+     */
+    private final Clock clock;
+
+    /**
+     * Ctor, creates a rate limiter that waits up to a single period for a permit,
+     * under sustained overload waiting longer would only book permits further and further ahead.
+     *
+     * @param permits the amount of attempts allowed per period
+     * @param period  the period length
+     * @param unit    the time unit of the period parameter
+     */
+    public RateLimiter(int permits, long period, TimeUnit unit) {
+        this(permits, period, unit, period, unit);
+    }
+
+    /**
+     * Ctor
+     *
+     * @param permits     the amount of attempts allowed per period
+     * @param period      the period length
+     * @param unit        the time unit of the period parameter
+     * @param timeout     the max time to wait for a permit, 0 to reject immediately
+     * @param timeoutUnit the time unit of the timeout parameter
+     */
+    public RateLimiter(int permits, long period, TimeUnit unit, long timeout, TimeUnit timeoutUnit) {
+        this(permits, period, unit, timeout, timeoutUnit, SystemClock.INSTANCE);
+    }
+
+    /**
+     * Ctor, creates a rate limiter without burst.
+     *
+     * @param permits     the amount of attempts allowed per period
+     * @param period      the period length
+     * @param unit        the time unit of the period parameter
+     * @param timeout     the max time to wait for a permit, 0 to reject immediately
+     * @param timeoutUnit the time unit of the timeout parameter
+     * @param clock       the time source, for example a VirtualClock in simulations
+     */
+    public RateLimiter(int permits, long period, TimeUnit unit, long timeout, TimeUnit timeoutUnit, Clock clock) {
+        this(permits, period, unit, 0, timeout, timeoutUnit, clock);
+    }
+
+    /**
+     * Ctor
+     *
+     * @param permits     the amount of attempts allowed per period
+     * @param period      the period length
+     * @param unit        the time unit of the period parameter
+     * @param burst       the amount of extra permits granted at once after an idle time, 0 for evenly spaced permits
+     * @param timeout     the max time to wait for a permit, 0 to reject immediately
+     * @param timeoutUnit the time unit of the timeout parameter
+     */
+    public RateLimiter(int permits, long period, TimeUnit unit, int burst, long timeout, TimeUnit timeoutUnit) {
+        this(permits, period, unit, burst, timeout, timeoutUnit, SystemClock.INSTANCE);
+    }
+
+    /**
+     * Ctor
+     *
+     * @param permits     the amount of attempts allowed per period
+     * @param period      the period length
+     * @param unit        the time unit of the period parameter
+     * @param burst       the amount of extra permits granted at once after an idle time, 0 for evenly spaced permits
+     * @param timeout     the max time to wait for a permit, 0 to reject immediately
+     * @param timeoutUnit the time unit of the timeout parameter
+     * @param clock       the time source, for example a VirtualClock in simulations
+     */
+    public RateLimiter(int permits, long period, TimeUnit unit, int burst, long timeout, TimeUnit timeoutUnit,
+                       Clock clock) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive");
+        }
+
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+
+        if (burst < 0) {
+            throw new IllegalArgumentException("burst must not be negative");
+        }
+
+        long periodNanos = unit.toNanos(period);
+
+        this.permitIntervalNanos = Math.max(1, periodNanos / permits);
+        this.burstNanos = burst * this.permitIntervalNanos;
+        this.timeoutNanos = timeout == WAIT_FOREVER ? WAIT_FOREVER : timeoutUnit.toNanos(Math.abs(timeout));
+        this.clock = clock;
+        this.nextFreePermit = new AtomicLong(clock.nanoTime());
+    }
+
+    /**
+     * Acquires a single permit, waits (parks the current thread) when needed and allowed by the timeout.
+     * An interrupted wait is a rejection (the attempt must not run before its permit),
+     * the reserved permit is then lost and the interrupt status is kept for the caller.
+     *
+     * @return true if a permit was acquired, false if the caller has been rejected
+     */
+    public boolean acquirePermission() {
+        long waitNanos = this.reservePermission();
+
+        if (waitNanos < 0) {
+            return false;
+        }
+
+        if (waitNanos > 0) {
+            long permitTime = this.clock.nanoTime() + waitNanos;
+
+            this.clock.parkNanos(waitNanos);
+
+            return this.clock.nanoTime() - permitTime >= 0;
+        }
+
+        return true;
+    }
+
+    /**
+     * Reserves the next free permit without waiting for it.
+     *
+     * @return the time (in nanoseconds) to wait until the reserved permit is usable,
+     * or a negative value if no permit can be reserved within the timeout
+     */
+    private long reservePermission() {
+        while (true) {
+            long now = this.clock.nanoTime();
+            long next = this.nextFreePermit.get();
+            long start = next - now > 0 ? next : now;
+            long waitNanos = start - this.burstNanos - now;
+
+            if (waitNanos < 0) {
+                waitNanos = 0;
+            }
+
+            if (waitNanos > this.timeoutNanos) {
+                return -1;
+            }
+
+            if (this.nextFreePermit.compareAndSet(next, start + this.permitIntervalNanos)) {
+                return waitNanos;
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.bnsd55.retryCatch.policies;
+
+import com.github.bnsd55.retryCatch.interfaces.StateStore;
+import com.github.bnsd55.retryCatch.state.AtomicStateStore;
+
+/**
+ * A retry budget (token bucket) that limits retries relative to successes,
+ * every retry withdraws a token and every success deposits a fraction of a token,
+ * so during an outage the retries stop once the budget is spent instead of multiplying the load.
+ *
+ * The state lives in a StateStore, by default in memory,
+ * use a MappedStateStore in order to share the budget between processes.
+ */
+public class RetryBudget {
+
+    /**
+     * The amount of StateStore slots a retry budget uses.
+     */
+    public static final int SLOTS = 1;
+
+    /**
+     * The spent tokens (in milli tokens), stored as a deficit so a zero filled store is a full budget.
+     */
+    private static final int DEFICIT = 0;
+
+    /**
+     * Tokens are stored as milli tokens in order to deposit fractions of a token.
+     */
+    private static final long SCALE = 1000;
+
+    /**
+     * The max deficit (in milli tokens), the budget size.
+     */
+    private final long maxDeficit;
+
+    /**
+     * The milli tokens deposited on each success.
+     */
+    private final long deposit;
+
+    /**
+     * Holds the spent tokens.
+     */
+    private final StateStore store;
+
+    /**
+     * Ctor, creates an in-memory retry budget.
+     *
+     * @param maxRetries        the budget size, the max amount of retries without any success
+     * @param depositPerSuccess the tokens deposited on each success, for example 0.1 allows a retry per 10 successes
+     */
+    public RetryBudget(int maxRetries, double depositPerSuccess) {
+        this(maxRetries, depositPerSuccess, new AtomicStateStore(SLOTS));
+    }
+
+    /**
+     * Ctor
+     *
+     * @param maxRetries        the budget size, the max amount of retries without any success
+     * @param depositPerSuccess the tokens deposited on each success, for example 0.1 allows a retry per 10 successes
+     * @param store             holds the spent tokens, must have at least SLOTS slots
+     */
+    public RetryBudget(int maxRetries, double depositPerSuccess, StateStore store) {
+        if (store.size() < SLOTS) {
+            throw new IllegalArgumentException("store must have at least " + SLOTS + " slots");
+        }
+
+        this.maxDeficit = Math.abs(maxRetries) * SCALE;
+        this.deposit = Math.round(Math.abs(depositPerSuccess) * SCALE);
+        this.store = store;
+    }
+
+    /**
+     * Withdraws a single token for a retry.
+     *
+     * @return true if the retry is within the budget, otherwise false
+     */
+    public boolean tryWithdraw() {
+        while (true) {
+            long deficit = this.store.get(DEFICIT);
+
+            if (deficit + SCALE > this.maxDeficit) {
+                return false;
+            }
+
+            if (this.store.compareAndSet(DEFICIT, deficit, deficit + SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Deposits the success share of a token.
+     */
+    public void deposit() {
+        while (true) {
+            long deficit = this.store.get(DEFICIT);
+
+            // A full budget is the common case, avoid writing shared memory
+            if (deficit == 0) {
+                return;
+            }
+
+            if (this.store.compareAndSet(DEFICIT, deficit, Math.max(0, deficit - this.deposit))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the amount of whole tokens left in the budget
+     */
+    public long available() {
+        return (this.maxDeficit - this.store.get(DEFICIT)) / SCALE;
+    }
+}
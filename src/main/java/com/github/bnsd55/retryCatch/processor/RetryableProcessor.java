@@ -0,0 +1,487 @@
+package com.github.bnsd55.retryCatch.processor;
+
+import com.github.bnsd55.retryCatch.annotations.Retryable;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Generates a retrying decorator for every interface annotated with @Retryable,
+ * the decorator calls a RetryCatch policy that is created once per method (a static final field),
+ * so there is no reflection and no RetryCatch allocation per call.
+ *
+ * For an interface Foo the generated class is RetryingFoo (RetryingOuter_Foo for a nested interface)
+ * in the same package, it implements Foo and gets the delegate in its constructor.
+ */
+@SupportedAnnotationTypes("com.github.bnsd55.retryCatch.annotations.Retryable")
+public class RetryableProcessor extends AbstractProcessor {
+
+    private static final String RETRYABLE = Retryable.class.getName();
+
+    private static final String RETRY_CATCH = "com.github.bnsd55.retryCatch.RetryCatch";
+
+    private static final String INDENT = "    ";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(Retryable.class)) {
+            this.validateCount(element);
+
+            if (element.getKind() == ElementKind.INTERFACE) {
+                this.generate((TypeElement) element);
+            } else if (element.getKind() == ElementKind.METHOD) {
+                if (element.getEnclosingElement().getKind() != ElementKind.INTERFACE) {
+                    this.error("@Retryable methods must be declared in an interface", element);
+                }
+            } else {
+                this.error("@Retryable is supported on interfaces and their methods only", element);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Rejects negative counts other than Retryable.INFINITE,
+     * RetryCatch#retryCount(int) takes the absolute value of them, so count = -2 would silently mean 2 retries.
+     *
+     * @param element the annotated interface or method
+     */
+    private void validateCount(Element element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (!annotation.getAnnotationType().toString().equals(RETRYABLE)) {
+                continue;
+            }
+
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value :
+                    annotation.getElementValues().entrySet()) {
+                if (value.getKey().getSimpleName().contentEquals("count") &&
+                        (Integer) value.getValue().getValue() < Retryable.INFINITE) {
+                    this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "@Retryable count must be positive, 0 or Retryable.INFINITE", element, annotation, value.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates the retrying decorator of an interface.
+     *
+     * @param type the annotated interface
+     */
+    private void generate(TypeElement type) {
+        if (type.getModifiers().contains(Modifier.PRIVATE)) {
+            this.error("@Retryable interfaces must not be private", type);
+            return;
+        }
+
+        Elements elements = this.processingEnv.getElementUtils();
+        Types types = this.processingEnv.getTypeUtils();
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String className = "Retrying" + this.flatName(type);
+        String typeParameters = this.typeParameters(type.getTypeParameters());
+        String interfaceType = type.getQualifiedName() + this.typeArguments(type.getTypeParameters());
+        Settings defaults = this.settingsOf(type, this.defaultSettings());
+
+        // Policy initializer -> field name, methods with the same settings share a policy
+        Map<String, String> policies = new LinkedHashMap<>();
+        StringBuilder methods = new StringBuilder();
+        Set<String> signatures = new HashSet<>();
+
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            if (!this.isDecorated(method)) {
+                continue;
+            }
+
+            ExecutableType methodType = (ExecutableType) types.asMemberOf((DeclaredType) type.asType(), method);
+
+            // The same method may be inherited from several super interfaces
+            if (!signatures.add(method.getSimpleName() + types.erasure(methodType).toString())) {
+                continue;
+            }
+
+            // Method settings, then the settings of the declaring interface, then the settings of the annotated interface
+            String initializer = this.settingsOf(method, this.settingsOf(method.getEnclosingElement(), defaults)).initializer();
+            String policy = policies.computeIfAbsent(initializer, i -> "POLICY_" + policies.size());
+
+            this.appendMethod(methods, method, methodType, policy);
+        }
+
+        StringBuilder source = new StringBuilder();
+
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+
+        source.append("/**\n")
+                .append(" * Retrying decorator of ").append(type.getQualifiedName()).append(",\n")
+                .append(" * generated by ").append(RetryableProcessor.class.getName()).append(", do not edit.\n")
+                .append(" */\n");
+
+        if (type.getModifiers().contains(Modifier.PUBLIC)) {
+            source.append("public ");
+        }
+
+        source.append("final class ").append(className).append(typeParameters)
+                .append(" implements ").append(interfaceType).append(" {\n\n");
+
+        for (Map.Entry<String, String> policy : policies.entrySet()) {
+            source.append(INDENT).append("private static final ").append(RETRY_CATCH).append(" ")
+                    .append(policy.getValue()).append(" = ").append(policy.getKey()).append(";\n\n");
+        }
+
+        source.append(INDENT).append("private final ").append(interfaceType).append(" delegate;\n\n")
+                .append(INDENT).append("public ").append(className).append("(").append(interfaceType).append(" delegate) {\n")
+                .append(INDENT).append(INDENT).append("if (delegate == null) {\n")
+                .append(INDENT).append(INDENT).append(INDENT).append("throw new NullPointerException(\"delegate\");\n")
+                .append(INDENT).append(INDENT).append("}\n\n")
+                .append(INDENT).append(INDENT).append("this.delegate = delegate;\n")
+                .append(INDENT).append("}\n")
+                .append(methods)
+                .append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+
+        try (Writer writer = this.processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            this.error("Cannot generate " + qualifiedName + ": " + e.getMessage(), type);
+        }
+    }
+
+    /**
+     * Appends a decorated method, the call to the delegate is wrapped with the policy,
+     * checked exceptions that are not declared by the method are wrapped with UndeclaredThrowableException.
+     *
+     * @param methods    the generated methods
+     * @param method     the interface method
+     * @param methodType the method type as a member of the annotated interface
+     * @param policy     the policy field name
+     */
+    private void appendMethod(StringBuilder methods, ExecutableElement method, ExecutableType methodType, String policy) {
+        List<? extends TypeMirror> parameterTypes = methodType.getParameterTypes();
+        StringJoiner parameters = new StringJoiner(", ");
+        StringJoiner arguments = new StringJoiner(", ");
+
+        for (int i = 0; i < parameterTypes.size(); i++) {
+            String parameterType = parameterTypes.get(i).toString();
+
+            if (method.isVarArgs() && i == parameterTypes.size() - 1) {
+                parameterType = parameterType.substring(0, parameterType.length() - 2) + "...";
+            }
+
+            parameters.add(parameterType + " arg" + i);
+            arguments.add("arg" + i);
+        }
+
+        boolean isVoid = methodType.getReturnType().getKind() == TypeKind.VOID;
+        String call = "this.delegate." + method.getSimpleName() + "(" + arguments + ")";
+        String invoke = policy + ".invoke(" + (isVoid ? "() -> {\n" +
+                INDENT + INDENT + INDENT + INDENT + call + ";\n" +
+                INDENT + INDENT + INDENT + INDENT + "return null;\n" +
+                INDENT + INDENT + INDENT + "})" : "() -> " + call + ")") + ";\n";
+        List<String> rethrown = this.rethrownTypes(methodType.getThrownTypes());
+
+        methods.append("\n").append(INDENT).append("@Override\n").append(INDENT).append("public ");
+
+        if (!method.getTypeParameters().isEmpty()) {
+            methods.append(this.typeParameters(method.getTypeParameters())).append(" ");
+        }
+
+        methods.append(methodType.getReturnType()).append(" ").append(method.getSimpleName())
+                .append("(").append(parameters).append(")");
+
+        if (!methodType.getThrownTypes().isEmpty()) {
+            StringJoiner thrown = new StringJoiner(", ", " throws ", "");
+
+            methodType.getThrownTypes().forEach(t -> thrown.add(t.toString()));
+            methods.append(thrown);
+        }
+
+        methods.append(" {\n");
+
+        if (rethrown == null) {
+            // The method declares Exception (or Throwable), every failure can be thrown as is
+            methods.append(INDENT).append(INDENT).append(isVoid ? "" : "return ").append(invoke);
+        } else {
+            methods.append(INDENT).append(INDENT).append("try {\n")
+                    .append(INDENT).append(INDENT).append(INDENT).append(isVoid ? "" : "return ").append(invoke)
+                    .append(INDENT).append(INDENT).append("} catch (RuntimeException retryFailure) {\n")
+                    .append(INDENT).append(INDENT).append(INDENT).append("throw retryFailure;\n");
+
+            for (String type : rethrown) {
+                methods.append(INDENT).append(INDENT).append("} catch (").append(type).append(" retryFailure) {\n")
+                        .append(INDENT).append(INDENT).append(INDENT).append("throw retryFailure;\n");
+            }
+
+            methods.append(INDENT).append(INDENT).append("} catch (Exception retryFailure) {\n")
+                    .append(INDENT).append(INDENT).append(INDENT)
+                    .append("throw new java.lang.reflect.UndeclaredThrowableException(retryFailure);\n")
+                    .append(INDENT).append(INDENT).append("}\n");
+        }
+
+        methods.append(INDENT).append("}\n");
+    }
+
+    /**
+     * Finds the declared checked exceptions to rethrow as is.
+     *
+     * @param thrownTypes the exceptions declared by the method
+     * @return the most general declared checked exceptions, or null if the method declares Exception or Throwable
+     */
+    private List<String> rethrownTypes(List<? extends TypeMirror> thrownTypes) {
+        Elements elements = this.processingEnv.getElementUtils();
+        Types types = this.processingEnv.getTypeUtils();
+        TypeMirror exception = elements.getTypeElement("java.lang.Exception").asType();
+        TypeMirror runtimeException = elements.getTypeElement("java.lang.RuntimeException").asType();
+        List<TypeMirror> checked = new ArrayList<>();
+
+        for (TypeMirror thrown : thrownTypes) {
+            if (types.isSubtype(exception, thrown)) {
+                return null;
+            }
+
+            // Type variables cannot be caught, they are wrapped like undeclared exceptions
+            if (thrown.getKind() == TypeKind.DECLARED && types.isSubtype(thrown, exception) &&
+                    !types.isSubtype(thrown, runtimeException)) {
+                checked.add(thrown);
+            }
+        }
+
+        List<String> rethrown = new ArrayList<>();
+
+        // A catch clause of a subtype after its super type does not compile, keep only the super types
+        for (TypeMirror thrown : checked) {
+            boolean covered = false;
+
+            for (TypeMirror other : checked) {
+                if (other != thrown && types.isSubtype(thrown, other) &&
+                        (!types.isSameType(thrown, other) || checked.indexOf(other) < checked.indexOf(thrown))) {
+                    covered = true;
+                    break;
+                }
+            }
+
+            if (!covered) {
+                rethrown.add(types.erasure(thrown).toString());
+            }
+        }
+
+        return rethrown;
+    }
+
+    /**
+     * @param method a member of the annotated interface
+     * @return true if the method should be decorated, abstract and default methods that are not Object methods
+     */
+    private boolean isDecorated(ExecutableElement method) {
+        Set<Modifier> modifiers = method.getModifiers();
+        Element owner = method.getEnclosingElement();
+
+        return owner.getKind() == ElementKind.INTERFACE &&
+                !modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.PRIVATE) &&
+                (modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.DEFAULT)) &&
+                !this.isObjectMethod(method);
+    }
+
+    /**
+     * @param method an interface method
+     * @return true if the method redeclares equals, hashCode or toString
+     */
+    private boolean isObjectMethod(ExecutableElement method) {
+        String name = method.getSimpleName().toString();
+        int parameters = method.getParameters().size();
+
+        return (name.equals("equals") && parameters == 1 &&
+                method.getParameters().get(0).asType().toString().equals("java.lang.Object")) ||
+                (name.equals("hashCode") && parameters == 0) ||
+                (name.equals("toString") && parameters == 0);
+    }
+
+    /**
+     * @return the settings of the @Retryable attribute defaults
+     */
+    private Settings defaultSettings() {
+        Settings settings = new Settings(Retryable.INFINITE, "");
+        TypeElement retryable = this.processingEnv.getElementUtils().getTypeElement(RETRYABLE);
+
+        for (ExecutableElement attribute : ElementFilter.methodsIn(retryable.getEnclosedElements())) {
+            if (attribute.getDefaultValue() != null) {
+                settings = settings.with(attribute, attribute.getDefaultValue());
+            }
+        }
+
+        return settings;
+    }
+
+    /**
+     * Reads the @Retryable settings of an element,
+     * the attributes the element does not set explicitly are taken from the defaults.
+     *
+     * @param element  the annotated interface or method
+     * @param defaults the settings of the enclosing scope (or the attribute defaults)
+     * @return the settings of the element
+     */
+    private Settings settingsOf(Element element, Settings defaults) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (!annotation.getAnnotationType().toString().equals(RETRYABLE)) {
+                continue;
+            }
+
+            Settings settings = defaults;
+
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value :
+                    annotation.getElementValues().entrySet()) {
+                settings = settings.with(value.getKey(), value.getValue());
+            }
+
+            return settings;
+        }
+
+        return defaults;
+    }
+
+    /**
+     * @param type a type element
+     * @return the simple name of the type, prefixed with the names of its enclosing types
+     */
+    private String flatName(TypeElement type) {
+        String name = type.getSimpleName().toString();
+        Element enclosing = type.getEnclosingElement();
+
+        while (enclosing instanceof TypeElement) {
+            name = enclosing.getSimpleName() + "_" + name;
+            enclosing = enclosing.getEnclosingElement();
+        }
+
+        return name;
+    }
+
+    /**
+     * @param typeParameters the type parameters of a type or a method
+     * @return the type parameters declaration with their bounds, for example {@code <T extends Number>}
+     */
+    private String typeParameters(List<? extends TypeParameterElement> typeParameters) {
+        if (typeParameters.isEmpty()) {
+            return "";
+        }
+
+        StringJoiner declaration = new StringJoiner(", ", "<", ">");
+
+        for (TypeParameterElement parameter : typeParameters) {
+            StringJoiner bounds = new StringJoiner(" & ");
+
+            for (TypeMirror bound : parameter.getBounds()) {
+                if (!bound.toString().equals("java.lang.Object")) {
+                    bounds.add(bound.toString());
+                }
+            }
+
+            declaration.add(parameter.getSimpleName() + (bounds.length() > 0 ? " extends " + bounds : ""));
+        }
+
+        return declaration.toString();
+    }
+
+    /**
+     * @param typeParameters the type parameters of a type
+     * @return the type parameters as type arguments, for example {@code <T>}
+     */
+    private String typeArguments(List<? extends TypeParameterElement> typeParameters) {
+        if (typeParameters.isEmpty()) {
+            return "";
+        }
+
+        StringJoiner arguments = new StringJoiner(", ", "<", ">");
+
+        typeParameters.forEach(parameter -> arguments.add(parameter.getSimpleName()));
+
+        return arguments.toString();
+    }
+
+    private void error(String message, Element element) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * The settings of a @Retryable interface or method.
+     */
+    private static class Settings {
+
+        private final int count;
+
+        /**
+         * The retryOn class literals, comma separated.
+         */
+        private final String retryOn;
+
+        private Settings(int count, String retryOn) {
+            this.count = count;
+            this.retryOn = retryOn;
+        }
+
+        /**
+         * @param attribute a @Retryable attribute
+         * @param value     the value of the attribute
+         * @return these settings with the attribute value
+         */
+        private Settings with(ExecutableElement attribute, AnnotationValue value) {
+            String name = attribute.getSimpleName().toString();
+
+            if (name.equals("count")) {
+                return new Settings((Integer) value.getValue(), this.retryOn);
+            } else if (name.equals("retryOn")) {
+                StringJoiner retryOn = new StringJoiner(", ");
+
+                for (Object type : (List<?>) value.getValue()) {
+                    retryOn.add(((AnnotationValue) type).getValue() + ".class");
+                }
+
+                return new Settings(this.count, retryOn.toString());
+            }
+
+            return this;
+        }
+
+        /**
+         * @return the expression that creates the RetryCatch policy of these settings
+         */
+        private String initializer() {
+            return "new " + RETRY_CATCH + "()" +
+                    (this.count != Retryable.INFINITE ? ".retryCount(" + this.count + ")" : "") +
+                    ".retryOn(" + this.retryOn + ")";
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.bnsd55.retryCatch.recorder;
+
+/**
+ * Emits an event per recorded attempt, implemented by FlightRecorderEmitter
+ * which is compiled separately (src/main/jfr) so the main sources do not depend on jdk.jfr.
+ */
+interface AttemptEventEmitter {
+
+    /**
+     * @param attempt       the attempt number, 0 for the first attempt
+     * @param outcome       the outcome of the attempt
+     * @param exceptionType the type of the threw exception, or null
+     * @param waitNanos     the time waited before the attempt
+     * @param durationNanos the execution time of the attempt
+     */
+    void emit(int attempt, AttemptOutcome outcome, Class<? extends Throwable> exceptionType,
+              long waitNanos, long durationNanos);
+}
@@ -0,0 +1,21 @@
+package com.github.bnsd55.retryCatch.recorder;
+
+/**
+ * The outcome of a single attempt.
+ */
+public enum AttemptOutcome {
+    /**
+     * The task completed without an exception.
+     */
+    SUCCESS,
+
+    /**
+     * The task threw an exception.
+     */
+    FAILURE,
+
+    /**
+     * The task was not executed, the circuit was open or the rate limiter did not grant a permit.
+     */
+    REJECTED
+}
@@ -0,0 +1,82 @@
+package com.github.bnsd55.retryCatch.recorder;
+
+/**
+ * A single recorded attempt, kept by the AttemptRecorder ring buffer.
+ */
+public class AttemptRecord {
+
+    private final long sequence;
+
+    private final long timestamp;
+
+    private final int attempt;
+
+    private final AttemptOutcome outcome;
+
+    private final Class<? extends Throwable> exceptionType;
+
+    private final long waitNanos;
+
+    private final long durationNanos;
+
+    /**
+     * Ctor
+     *
+     * @param sequence      the global order of the record in its recorder
+     * @param timestamp     the time (epoch millis) the attempt ended at
+     * @param attempt       the attempt number, 0 for the first attempt (keeps counting with infinite retries)
+     * @param outcome       the outcome of the attempt
+     * @param exceptionType the type of the threw exception, or null
+     * @param waitNanos     the time waited before the attempt (circuit breaker and rate limiter)
+     * @param durationNanos the execution time of the attempt
+     */
+    AttemptRecord(long sequence, long timestamp, int attempt, AttemptOutcome outcome,
+                  Class<? extends Throwable> exceptionType, long waitNanos, long durationNanos) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.attempt = attempt;
+        this.outcome = outcome;
+        this.exceptionType = exceptionType;
+        this.waitNanos = waitNanos;
+        this.durationNanos = durationNanos;
+    }
+
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    public int getAttempt() {
+        return this.attempt;
+    }
+
+    public AttemptOutcome getOutcome() {
+        return this.outcome;
+    }
+
+    public Class<? extends Throwable> getExceptionType() {
+        return this.exceptionType;
+    }
+
+    public long getWaitNanos() {
+        return this.waitNanos;
+    }
+
+    public long getDurationNanos() {
+        return this.durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + this.sequence +
+                " at " + this.timestamp +
+                " attempt=" + this.attempt +
+                " outcome=" + this.outcome +
+                (this.exceptionType != null ? " exception=" + this.exceptionType.getName() : "") +
+                " waitNanos=" + this.waitNanos +
+                " durationNanos=" + this.durationNanos;
+    }
+}
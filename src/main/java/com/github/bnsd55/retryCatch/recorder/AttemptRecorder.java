@@ -0,0 +1,127 @@
+package com.github.bnsd55.retryCatch.recorder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records every attempt of a RetryCatch as a JDK Flight Recorder event
+ * and/or into a fixed-size lock-free ring buffer that can be dumped on demand.
+ *
+ * A RetryCatch without a recorder does not read the clock nor allocate anything per attempt,
+ * the JFR events cost a single check while no recording is running.
+ *
+ * The JFR events are compiled separately (src/main/jfr, on JDK 11 and above),
+ * when the jar has been built without them, or jdk.jfr is not available in the running JVM,
+ * only the ring buffer records attempts.
+ */
+public class AttemptRecorder {
+
+    /**
+     * The JFR events emitter, null when jdk.jfr is not available in the running JVM
+     * (Java 11, or Java 8 update 262 and above) or the jar has been built without it.
+     */
+    private static final AttemptEventEmitter FLIGHT_RECORDER = loadFlightRecorder();
+
+    /**
+     * The JFR events emitter of this recorder, or null when JFR events are disabled.
+     */
+    private final AttemptEventEmitter flightRecorder;
+
+    /**
+     * The ring buffer slots, null when the ring buffer is disabled.
+     */
+    private final AtomicReferenceArray<AttemptRecord> ring;
+
+    private final int ringMask;
+
+    /**
+     * The sequence of the next record, the ring slot of a record is its sequence masked.
+     */
+    private final AtomicLong sequence;
+
+    /**
+     * Ctor
+     *
+     * @param ringCapacity         the amount of latest attempts to keep, rounded up to a power of two, 0 for no ring buffer
+     * @param flightRecorderEvents true in order to emit a JFR event per attempt (ignored when JFR is not available)
+     */
+    public AttemptRecorder(int ringCapacity, boolean flightRecorderEvents) {
+        if (ringCapacity < 0 || ringCapacity > 1 << 30) {
+            throw new IllegalArgumentException("ringCapacity must be between 0 and 2^30");
+        }
+
+        int capacity = ringCapacity <= 1 ? ringCapacity : Integer.highestOneBit(ringCapacity - 1) << 1;
+
+        this.flightRecorder = flightRecorderEvents ? FLIGHT_RECORDER : null;
+        this.ring = capacity > 0 ? new AtomicReferenceArray<>(capacity) : null;
+        this.ringMask = capacity - 1;
+        this.sequence = new AtomicLong();
+    }
+
+    /**
+     * Records a single attempt.
+     *
+     * @param attempt       the attempt number, 0 for the first attempt
+     * @param outcome       the outcome of the attempt
+     * @param exception     the threw exception, or null
+     * @param waitNanos     the time waited before the attempt
+     * @param durationNanos the execution time of the attempt
+     */
+    public void record(int attempt, AttemptOutcome outcome, Throwable exception, long waitNanos, long durationNanos) {
+        Class<? extends Throwable> exceptionType = exception != null ? exception.getClass() : null;
+
+        if (this.flightRecorder != null) {
+            this.flightRecorder.emit(attempt, outcome, exceptionType, waitNanos, durationNanos);
+        }
+
+        if (this.ring != null) {
+            long seq = this.sequence.getAndIncrement();
+
+            // Readers only need the latest record of a slot, a lazy write is enough
+            this.ring.lazySet((int) (seq & this.ringMask), new AttemptRecord(seq, System.currentTimeMillis(),
+                    attempt, outcome, exceptionType, waitNanos, durationNanos));
+        }
+    }
+
+    /**
+     * Dumps the ring buffer, records written concurrently with the dump may or may not be included.
+     *
+     * @return the latest recorded attempts, oldest first
+     */
+    public List<AttemptRecord> dump() {
+        List<AttemptRecord> records = new ArrayList<>();
+
+        if (this.ring == null) {
+            return records;
+        }
+
+        for (int i = 0; i < this.ring.length(); i++) {
+            AttemptRecord record = this.ring.get(i);
+
+            if (record != null) {
+                records.add(record);
+            }
+        }
+
+        records.sort(Comparator.comparingLong(AttemptRecord::getSequence));
+
+        return records;
+    }
+
+    /**
+     * @return the JFR events emitter, or null if jdk.jfr or the emitter cannot be loaded
+     */
+    private static AttemptEventEmitter loadFlightRecorder() {
+        try {
+            Class.forName("jdk.jfr.Event", false, AttemptRecorder.class.getClassLoader());
+
+            return (AttemptEventEmitter) Class.forName("com.github.bnsd55.retryCatch.recorder.FlightRecorderEmitter")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
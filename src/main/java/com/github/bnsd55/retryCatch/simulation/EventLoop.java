@@ -0,0 +1,295 @@
+package com.github.bnsd55.retryCatch.simulation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The discrete event loop of a simulation run, pending events are ordered by virtual time
+ * (then by the order they were scheduled at) and the earliest one always runs next.
+ *
+ * Every simulated request runs on a worker thread as a coroutine, only a single thread runs at a time
+ * and the turn is handed over explicitly, so runs stay deterministic.
+ * A request that waits virtual time (a dependency call, a RateLimiter wait, see VirtualClock#parkNanos)
+ * is suspended until the events due before the end of its wait have run,
+ * so overlapping requests see each other's effect on the policy state in virtual time order,
+ * like concurrent callers would.
+ *
+ * When no event is due before the end of a wait, the waiting request moves the clock forward and continues,
+ * so requests that do not overlap run one after another on a single thread, without any thread switch.
+ */
+final class EventLoop {
+
+    private final VirtualClock clock;
+
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+
+    private final Deque<Worker> idleWorkers = new ArrayDeque<>();
+
+    private final List<Worker> workers = new ArrayList<>();
+
+    /**
+     * The order events are scheduled at, orders events due at the same virtual time.
+     */
+    private long sequence;
+
+    /**
+     * The thread that runs the loop, waits until the events run out.
+     */
+    private Thread owner;
+
+    /**
+     * The only thread allowed to run, handing the turn over publishes the simulation state to the next thread.
+     */
+    private volatile Thread running;
+
+    private volatile boolean closed;
+
+    /**
+     * The failure that aborted the run, or null.
+     */
+    private Throwable failure;
+
+    /**
+     * Ctor
+     *
+     * @param clock the virtual clock of the simulation
+     */
+    EventLoop(VirtualClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Schedules a new simulated request.
+     *
+     * @param time    the virtual time the request starts at
+     * @param request the request, runs on a worker thread
+     */
+    void schedule(long time, Runnable request) {
+        this.events.add(new Event(time, this.sequence++, null, request));
+    }
+
+    /**
+     * Runs the events until none is pending (all the requests have ended).
+     *
+     * @throws RuntimeException the unchecked exception a request failed with, the run is aborted
+     * @throws Error            the error a request failed with, the run is aborted
+     */
+    void run() {
+        this.owner = Thread.currentThread();
+        this.clock.attach(this);
+
+        try {
+            this.dispatch(null, false);
+        } finally {
+            this.closed = true;
+            this.clock.attach(null);
+
+            // Idle workers exit, when aborted suspended requests unwind
+            for (Worker worker : this.workers) {
+                LockSupport.unpark(worker);
+            }
+        }
+
+        if (this.failure instanceof Error) {
+            throw (Error) this.failure;
+        } else if (this.failure != null) {
+            throw (RuntimeException) this.failure;
+        }
+    }
+
+    /**
+     * Suspends the current request for the given virtual time.
+     *
+     * @param nanos the time to wait, in nanoseconds
+     */
+    void await(long nanos) {
+        long wakeAt = this.clock.nanoTime() + Math.max(nanos, 0);
+        Event next = this.events.peek();
+
+        // Nothing happens before the end of the wait
+        if (next == null || next.time > wakeAt) {
+            this.clock.advanceTo(wakeAt);
+            return;
+        }
+
+        if (!(Thread.currentThread() instanceof Worker)) {
+            throw new IllegalStateException("Virtual time can only be waited for by a simulated request");
+        }
+
+        Worker current = (Worker) Thread.currentThread();
+
+        this.events.add(new Event(wakeAt, this.sequence++, current, null));
+        this.dispatch(current, true);
+
+        if (this.closed) {
+            throw new Aborted();
+        }
+    }
+
+    /**
+     * Runs the next event, either on the current thread or by handing the turn over to another thread.
+     *
+     * @param current   the current worker, or null on the owner thread
+     * @param suspended true if the current worker waits for its own resume event, false if it is idle
+     */
+    private void dispatch(Worker current, boolean suspended) {
+        Event event = this.events.poll();
+        Thread next;
+
+        if (event == null) {
+            // No request is suspended and none is scheduled, the run is over
+            next = this.owner;
+        } else {
+            this.clock.advanceTo(event.time);
+
+            if (event.worker == current && current != null) {
+                return;
+            } else if (event.worker != null) {
+                next = event.worker;
+            } else if (current != null && !suspended) {
+                // An idle worker runs the new request itself
+                current.request = event.request;
+                return;
+            } else {
+                Worker worker = this.idleWorkers.poll();
+
+                if (worker == null) {
+                    worker = new Worker(this.workers.size());
+                    this.workers.add(worker);
+                    worker.start();
+                }
+
+                worker.request = event.request;
+                next = worker;
+            }
+        }
+
+        if (current != null && !suspended) {
+            this.idleWorkers.push(current);
+        }
+
+        this.handOff(next);
+    }
+
+    /**
+     * Hands the turn over and waits until the current thread gets it back (or the run is closed).
+     *
+     * @param next the thread to run
+     */
+    private void handOff(Thread next) {
+        Thread current = Thread.currentThread();
+
+        this.running = next;
+
+        if (next != current) {
+            LockSupport.unpark(next);
+        }
+
+        this.awaitTurn();
+    }
+
+    /**
+     * Waits until the current thread gets the turn or the run is closed.
+     */
+    private void awaitTurn() {
+        Thread current = Thread.currentThread();
+
+        while (this.running != current && !this.closed) {
+            LockSupport.park(this);
+        }
+    }
+
+    /**
+     * Aborts the run, the owner thread rethrows the failure.
+     *
+     * @param failure the failure of a request
+     */
+    private void abort(Throwable failure) {
+        this.failure = failure;
+        this.closed = true;
+
+        LockSupport.unpark(this.owner);
+    }
+
+    /**
+     * A pending event, a new request (request is set) or the end of a request wait (worker is set).
+     */
+    private static final class Event implements Comparable<Event> {
+        private final long time;
+
+        private final long sequence;
+
+        private final Worker worker;
+
+        private final Runnable request;
+
+        private Event(long time, long sequence, Worker worker, Runnable request) {
+            this.time = time;
+            this.sequence = sequence;
+            this.worker = worker;
+            this.request = request;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            if (this.time != other.time) {
+                return Long.compare(this.time, other.time);
+            }
+
+            return Long.compare(this.sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Runs simulated requests, one at a time, reused once its request has ended.
+     */
+    private final class Worker extends Thread {
+
+        /**
+         * The request to run next, set by the thread that hands the turn over.
+         */
+        private Runnable request;
+
+        private Worker(int index) {
+            super("simulation-worker-" + index);
+            this.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            EventLoop.this.awaitTurn();
+
+            while (!EventLoop.this.closed && this.request != null) {
+                Runnable request = this.request;
+
+                this.request = null;
+
+                try {
+                    request.run();
+                } catch (Aborted e) {
+                    return;
+                } catch (Throwable t) {
+                    EventLoop.this.abort(t);
+                    return;
+                }
+
+                EventLoop.this.dispatch(this, false);
+            }
+        }
+    }
+
+    /**
+     * Unwinds the suspended requests of an aborted run, an Error so the policy does not retry on it.
+     */
+    private static final class Aborted extends Error {
+        private static final long serialVersionUID = 1L;
+
+        private Aborted() {
+            super("Simulation aborted", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.bnsd55.retryCatch.simulation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The latency of a SyntheticDependency call.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * @param random the random source of the simulation
+     * @return a latency sample, in nanoseconds
+     */
+    long sampleNanos(SplittableRandom random);
+
+    /**
+     * @param latency the latency of every call
+     * @param unit    the time unit of the latency parameter
+     * @return a constant latency
+     */
+    static LatencyDistribution constant(long latency, TimeUnit unit) {
+        long nanos = unit.toNanos(latency);
+
+        return random -> nanos;
+    }
+
+    /**
+     * @param min  the min latency (inclusive)
+     * @param max  the max latency (exclusive)
+     * @param unit the time unit of the min and max parameters
+     * @return a latency uniformly distributed between min and max
+     */
+    static LatencyDistribution uniform(long min, long max, TimeUnit unit) {
+        long minNanos = unit.toNanos(min);
+        long maxNanos = unit.toNanos(max);
+
+        return random -> maxNanos > minNanos ? random.nextLong(minNanos, maxNanos) : minNanos;
+    }
+
+    /**
+     * @param mean the mean latency
+     * @param unit the time unit of the mean parameter
+     * @return an exponentially distributed latency
+     */
+    static LatencyDistribution exponential(long mean, TimeUnit unit) {
+        double meanNanos = unit.toNanos(mean);
+
+        return random -> (long) (-meanNanos * Math.log(1.0 - random.nextDouble()));
+    }
+
+    /**
+     * A log-normal latency, a typical long tail service latency.
+     *
+     * @param median the median latency
+     * @param sigma  the standard deviation of the latency logarithm, 0.5 is a moderate tail, 1 a heavy one
+     * @param unit   the time unit of the median parameter
+     * @return a log-normally distributed latency
+     */
+    static LatencyDistribution logNormal(long median, double sigma, TimeUnit unit) {
+        double mu = Math.log(unit.toNanos(median));
+
+        return random -> (long) Math.exp(mu + sigma * gaussian(random));
+    }
+
+    /**
+     * @param random the random source
+     * @return a standard normal sample (Box-Muller)
+     */
+    static double gaussian(SplittableRandom random) {
+        return Math.sqrt(-2.0 * Math.log(1.0 - random.nextDouble())) * Math.cos(2.0 * Math.PI * random.nextDouble());
+    }
+}
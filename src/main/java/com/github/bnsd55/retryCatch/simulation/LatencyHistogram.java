@@ -0,0 +1,87 @@
+package com.github.bnsd55.retryCatch.simulation;
+
+/**
+ * A log-linear latency histogram, bounded memory for any amount of samples
+ * with percentiles accurate to about 3% (32 linear sub buckets per power of two).
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+
+    private long total = 0;
+
+    private long max = 0;
+
+    /**
+     * @param nanos a latency sample, negative samples are recorded as 0
+     */
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+
+        this.counts[indexOf(value)]++;
+        this.total++;
+        this.max = Math.max(this.max, value);
+    }
+
+    /**
+     * @param percentile the percentile (0 - 100)
+     * @return the upper bound of the bucket holding the percentile, in nanoseconds, 0 when empty
+     */
+    long percentile(double percentile) {
+        if (this.total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(this.total * percentile / 100.0));
+        long seen = 0;
+
+        for (int i = 0; i < this.counts.length; i++) {
+            seen += this.counts[i];
+
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), this.max);
+            }
+        }
+
+        return this.max;
+    }
+
+    long max() {
+        return this.max;
+    }
+
+    /**
+     * Values below SUB_BUCKETS are exact, above, every power of two is split into SUB_BUCKETS buckets.
+     *
+     * @param value a non negative value
+     * @return the bucket index of the value
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @param index a bucket index
+     * @return the highest value of the bucket
+     */
+    private static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKETS - 1;
+        long base = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+
+        return base + (1L << shift) - 1;
+    }
+}
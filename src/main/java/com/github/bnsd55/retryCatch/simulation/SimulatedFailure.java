@@ -0,0 +1,13 @@
+package com.github.bnsd55.retryCatch.simulation;
+
+/**
+ * Thrown by a failing SyntheticDependency call,
+ * a single instance without a stack trace is reused so failures cost (almost) nothing.
+ */
+public class SimulatedFailure extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    SimulatedFailure() {
+        super("Simulated failure", null, false, false);
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.bnsd55.retryCatch.simulation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The results of a simulation run, latencies are in virtual time
+ * and measured from the request arrival to its result (or terminal failure), including all the retries.
+ */
+public class SimulationReport {
+
+    private final long requests;
+
+    private final long attempts;
+
+    private final long successes;
+
+    private final long failures;
+
+    private final long rejections;
+
+    private final long virtualDurationNanos;
+
+    private final LatencyHistogram latencies;
+
+    SimulationReport(long requests, long attempts, long successes, long failures, long rejections,
+                     long virtualDurationNanos, LatencyHistogram latencies) {
+        this.requests = requests;
+        this.attempts = attempts;
+        this.successes = successes;
+        this.failures = failures;
+        this.rejections = rejections;
+        this.virtualDurationNanos = virtualDurationNanos;
+        this.latencies = latencies;
+    }
+
+    /**
+     * @return the amount of simulated requests
+     */
+    public long getRequests() {
+        return this.requests;
+    }
+
+    /**
+     * @return the amount of calls that reached the dependency (first attempts and retries)
+     */
+    public long getAttempts() {
+        return this.attempts;
+    }
+
+    /**
+     * @return the requests that ended with a result
+     */
+    public long getSuccesses() {
+        return this.successes;
+    }
+
+    /**
+     * @return the requests that ended with a failure of the dependency
+     */
+    public long getFailures() {
+        return this.failures;
+    }
+
+    /**
+     * @return the requests that ended rejected by the circuit breaker or the rate limiter
+     */
+    public long getRejections() {
+        return this.rejections;
+    }
+
+    /**
+     * @return the load amplification, the amount of dependency calls per request
+     */
+    public double getAmplification() {
+        return this.requests == 0 ? 0 : (double) this.attempts / this.requests;
+    }
+
+    /**
+     * @return the fraction (0 - 1) of the requests that ended with a result
+     */
+    public double getSuccessRate() {
+        return this.requests == 0 ? 0 : (double) this.successes / this.requests;
+    }
+
+    /**
+     * @param unit the time unit of the returned value
+     * @return the virtual time the simulation took
+     */
+    public long getVirtualDuration(TimeUnit unit) {
+        return unit.convert(this.virtualDurationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param percentile the percentile (0 - 100), for example 99.9
+     * @param unit       the time unit of the returned value
+     * @return the request latency at the percentile, accurate to about 3%
+     */
+    public long getLatencyPercentile(double percentile, TimeUnit unit) {
+        return unit.convert(this.latencies.percentile(percentile), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit the time unit of the returned value
+     * @return the max request latency
+     */
+    public long getMaxLatency(TimeUnit unit) {
+        return unit.convert(this.latencies.max(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("requests=%d, attempts=%d, amplification=%.3f, successRate=%.4f, failures=%d, rejections=%d, "
+                        + "latency(us) p50=%d p90=%d p99=%d p99.9=%d max=%d, virtualDuration(ms)=%d",
+                this.requests, this.attempts, this.getAmplification(), this.getSuccessRate(), this.failures, this.rejections,
+                this.getLatencyPercentile(50, TimeUnit.MICROSECONDS), this.getLatencyPercentile(90, TimeUnit.MICROSECONDS),
+                this.getLatencyPercentile(99, TimeUnit.MICROSECONDS), this.getLatencyPercentile(99.9, TimeUnit.MICROSECONDS),
+                this.getMaxLatency(TimeUnit.MICROSECONDS), this.getVirtualDuration(TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.bnsd55.retryCatch.simulation;
+
+import com.github.bnsd55.retryCatch.RetryCatch;
+import com.github.bnsd55.retryCatch.exceptions.CircuitOpenException;
+import com.github.bnsd55.retryCatch.exceptions.RateLimitExceededException;
+
+import java.util.SplittableRandom;
+
+/**
+ * Drives a RetryCatch policy against a SyntheticDependency on virtual time,
+ * so retry, circuit breaker, retry budget and rate limiter settings can be evaluated offline
+ * (and in CI) at hundreds of thousands of simulated requests per second.
+ *
+ * Requests arrive by an inter arrival distribution (open loop, as if sent by independent callers),
+ * every request starts at its arrival time even if the previous ones are still running.
+ * The run is a discrete event simulation, overlapping requests interleave on the virtual time
+ * (every dependency call and every wait is a step, the earliest pending step runs next),
+ * so the policy state (circuit breaker, retry budget, rate limiter) sees the attempts in virtual time order,
+ * as it would with concurrent callers. The virtual clock never goes back.
+ * The policy time based parts (CircuitBreaker, RateLimiter) must be created with the simulation VirtualClock.
+ *
+ * Given the same seeds and settings, a run always produces the same report.
+ *
+ * The simulation package ships in the main jar on purpose, it has no dependencies
+ * and simulations run the users' own policies from their tests or CI jobs,
+ * which requires it on their classpath next to RetryCatch.
+ */
+public class Simulator {
+
+    private final VirtualClock clock;
+
+    private final SplittableRandom random;
+
+    /**
+     * Ctor
+     *
+     * @param clock the virtual clock shared with the dependency and the policy
+     * @param seed  the random seed of the requests arrival
+     */
+    public Simulator(VirtualClock clock, long seed) {
+        this.clock = clock;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Runs a simulation, the policy callbacks are executed as usual,
+     * so callbacks that print should not be registered for large runs.
+     * Overlapping requests run on separate (pooled) threads, one at a time,
+     * the policy must not be shared with a concurrent simulation.
+     *
+     * @param policy       the policy under test
+     * @param dependency   the dependency the policy calls
+     * @param requests     the amount of requests to simulate
+     * @param interArrival the time between two successive request arrivals,
+     *                     for example LatencyDistribution.exponential() for Poisson arrivals
+     * @return the simulation results
+     */
+    public SimulationReport run(RetryCatch policy, SyntheticDependency dependency, long requests,
+                                LatencyDistribution interArrival) {
+        long startedAt = this.clock.nanoTime();
+        long initialCalls = dependency.getCalls();
+        Run run = new Run(policy, dependency, requests, interArrival);
+
+        run.scheduleArrival(startedAt);
+        run.eventLoop.run();
+
+        return new SimulationReport(requests, dependency.getCalls() - initialCalls, run.successes, run.failures,
+                run.rejections, this.clock.nanoTime() - startedAt, run.latencies);
+    }
+
+    /**
+     * @param failure the terminal failure of a request, or its cause
+     * @return true if the request has been rejected by the circuit breaker or the rate limiter
+     */
+    private static boolean isRejection(Throwable failure) {
+        return failure instanceof CircuitOpenException || failure instanceof RateLimitExceededException;
+    }
+
+    /**
+     * A single simulation run, its requests and results.
+     */
+    private final class Run {
+
+        private final RetryCatch policy;
+
+        private final SyntheticDependency dependency;
+
+        private final long requests;
+
+        private final LatencyDistribution interArrival;
+
+        private final EventLoop eventLoop = new EventLoop(Simulator.this.clock);
+
+        private final LatencyHistogram latencies = new LatencyHistogram();
+
+        private long arrived = 0;
+
+        private long successes = 0;
+
+        private long failures = 0;
+
+        private long rejections = 0;
+
+        private Run(RetryCatch policy, SyntheticDependency dependency, long requests, LatencyDistribution interArrival) {
+            this.policy = policy;
+            this.dependency = dependency;
+            this.requests = requests;
+            this.interArrival = interArrival;
+        }
+
+        /**
+         * Schedules the next request, unless all the requests have arrived.
+         *
+         * @param arrival the virtual time the request arrives at
+         */
+        private void scheduleArrival(long arrival) {
+            if (this.arrived < this.requests) {
+                this.arrived++;
+                this.eventLoop.schedule(arrival, () -> this.request(arrival));
+            }
+        }
+
+        /**
+         * Executes a single request through the policy.
+         *
+         * @param arrival the virtual time the request arrived at
+         */
+        private void request(long arrival) {
+            // The next request arrives independently of this one
+            this.scheduleArrival(arrival + this.interArrival.sampleNanos(Simulator.this.random));
+
+            try {
+                this.policy.invoke(this.dependency::call);
+                this.successes++;
+            } catch (Exception e) {
+                // With failures aggregation the rejection is the cause of a RetryFailedException
+                if (isRejection(e) || isRejection(e.getCause())) {
+                    this.rejections++;
+                } else {
+                    this.failures++;
+                }
+            }
+
+            this.latencies.record(Simulator.this.clock.nanoTime() - arrival);
+        }
+    }
+}
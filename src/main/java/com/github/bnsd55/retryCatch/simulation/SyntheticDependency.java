@@ -0,0 +1,175 @@
+package com.github.bnsd55.retryCatch.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A simulated remote dependency, every call takes a sampled latency of virtual time
+ * and fails with the configured failure rate, outage windows override the failure rate
+ * during a range of virtual time.
+ *
+ * Given the same seed and the same calls sequence, the results are always the same.
+ */
+public class SyntheticDependency {
+
+    private final VirtualClock clock;
+
+    private final SplittableRandom random;
+
+    /**
+     * The single (stack trace less) failure instance thrown by failing calls.
+     */
+    private final SimulatedFailure failure = new SimulatedFailure();
+
+    private final List<Outage> outages = new ArrayList<>();
+
+    private LatencyDistribution latency = LatencyDistribution.constant(0, TimeUnit.NANOSECONDS);
+
+    /**
+     * The latency of a failing call, or null when failing calls take the same latency as successful calls.
+     */
+    private LatencyDistribution failureLatency = null;
+
+    private double failureRate = 0;
+
+    private long calls = 0;
+
+    private long failures = 0;
+
+    /**
+     * Ctor
+     *
+     * @param clock the virtual clock of the simulation
+     * @param seed  the random seed, the same seed reproduces the same results
+     */
+    public SyntheticDependency(VirtualClock clock, long seed) {
+        this.clock = clock;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * @param latency the latency of a call
+     * @return this instance in order to keep initializing
+     */
+    public SyntheticDependency latency(LatencyDistribution latency) {
+        this.latency = latency;
+
+        return this;
+    }
+
+    /**
+     * @param latency the latency of a failing call, for example a timeout
+     * @return this instance in order to keep initializing
+     */
+    public SyntheticDependency failureLatency(LatencyDistribution latency) {
+        this.failureLatency = latency;
+
+        return this;
+    }
+
+    /**
+     * @param failureRate the probability (0 - 1) of a call to fail outside of outages
+     * @return this instance in order to keep initializing
+     */
+    public SyntheticDependency failureRate(double failureRate) {
+        if (failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("failureRate must be between 0 and 1");
+        }
+
+        this.failureRate = failureRate;
+
+        return this;
+    }
+
+    /**
+     * Adds an outage window, calls starting within the window fail with the outage failure rate.
+     *
+     * @param start       the virtual time the outage starts at
+     * @param end         the virtual time the outage ends at (exclusive)
+     * @param unit        the time unit of the start and end parameters
+     * @param failureRate the probability (0 - 1) of a call to fail during the outage, 1 for a full outage
+     * @return this instance in order to keep initializing
+     */
+    public SyntheticDependency outage(long start, long end, TimeUnit unit, double failureRate) {
+        if (failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("failureRate must be between 0 and 1");
+        }
+
+        this.outages.add(new Outage(unit.toNanos(start), unit.toNanos(end), failureRate));
+
+        return this;
+    }
+
+    /**
+     * Executes a single call, the outcome is decided when the call starts and the call takes its latency
+     * of virtual time (see VirtualClock#parkNanos), so during a Simulator run other requests run meanwhile.
+     *
+     * @return the virtual time the call ended at
+     * @throws SimulatedFailure when the call fails
+     */
+    public long call() throws SimulatedFailure {
+        boolean failed = this.random.nextDouble() < this.currentFailureRate();
+        LatencyDistribution callLatency = failed && this.failureLatency != null ? this.failureLatency : this.latency;
+
+        this.calls++;
+        this.clock.parkNanos(callLatency.sampleNanos(this.random));
+
+        if (failed) {
+            this.failures++;
+
+            throw this.failure;
+        }
+
+        return this.clock.nanoTime();
+    }
+
+    /**
+     * @return the amount of calls executed so far
+     */
+    public long getCalls() {
+        return this.calls;
+    }
+
+    /**
+     * @return the amount of failed calls so far
+     */
+    public long getFailures() {
+        return this.failures;
+    }
+
+    /**
+     * @return the failure rate at the current virtual time
+     */
+    private double currentFailureRate() {
+        long now = this.clock.nanoTime();
+
+        for (int i = 0; i < this.outages.size(); i++) {
+            Outage outage = this.outages.get(i);
+
+            if (now >= outage.start && now < outage.end) {
+                return outage.failureRate;
+            }
+        }
+
+        return this.failureRate;
+    }
+
+    /**
+     * A range of virtual time with its own failure rate.
+     */
+    private static class Outage {
+        private final long start;
+
+        private final long end;
+
+        private final double failureRate;
+
+        private Outage(long start, long end, double failureRate) {
+            this.start = start;
+            this.end = end;
+            this.failureRate = failureRate;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.bnsd55.retryCatch.simulation;
+
+import com.github.bnsd55.retryCatch.interfaces.Clock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A deterministic Clock for simulations, time moves only forward and only when advanced
+ * (by the Simulator to the next event, by a SyntheticDependency call, or by a policy that waits, such as a RateLimiter).
+ *
+ * During a Simulator run, waiting (parkNanos) suspends the simulated request until the end of the wait,
+ * and the requests with events due earlier run in the meantime.
+ *
+ * Not thread safe, a simulation runs a single request at a time.
+ */
+public class VirtualClock implements Clock {
+
+    /**
+     * The default wall clock time of virtual time 0, a fixed non zero time
+     * because the policies use a zero wall clock time as "never" (see CircuitBreaker).
+     */
+    public static final long DEFAULT_EPOCH_MILLIS = 1_000_000_000_000L;
+
+    /**
+     * The wall clock time (epoch millis) of virtual time 0.
+     */
+    private final long epochMillis;
+
+    private long nanos;
+
+    /**
+     * The event loop of the running simulation, or null.
+     */
+    private EventLoop eventLoop;
+
+    /**
+     * Ctor, virtual time 0 is DEFAULT_EPOCH_MILLIS.
+     */
+    public VirtualClock() {
+        this(DEFAULT_EPOCH_MILLIS);
+    }
+
+    /**
+     * Ctor
+     *
+     * @param epochMillis the wall clock time (epoch millis) of virtual time 0, must not be 0
+     */
+    public VirtualClock(long epochMillis) {
+        this.epochMillis = epochMillis;
+        this.nanos = 0;
+    }
+
+    @Override
+    public long nanoTime() {
+        return this.nanos;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return this.epochMillis + TimeUnit.NANOSECONDS.toMillis(this.nanos);
+    }
+
+    /**
+     * Waiting advances the virtual time, during a Simulator run the current request is suspended
+     * while the events due before the end of the wait run, otherwise it returns immediately.
+     *
+     * @param nanos the time to wait, in nanoseconds
+     */
+    @Override
+    public void parkNanos(long nanos) {
+        if (this.eventLoop != null) {
+            this.eventLoop.await(nanos);
+        } else {
+            this.advance(nanos);
+        }
+    }
+
+    /**
+     * @param nanos the time to move forward, negative values are ignored
+     */
+    public void advance(long nanos) {
+        if (nanos > 0) {
+            this.nanos += nanos;
+        }
+    }
+
+    /**
+     * @param nanos the virtual time to move forward to, an earlier time is ignored (time never goes back)
+     */
+    public void advanceTo(long nanos) {
+        if (nanos > this.nanos) {
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * @param eventLoop the event loop of the simulation that starts running, or null when it ends
+     */
+    void attach(EventLoop eventLoop) {
+        if (eventLoop != null && this.eventLoop != null) {
+            throw new IllegalStateException("The clock is already used by a running simulation");
+        }
+
+        this.eventLoop = eventLoop;
+    }
+}
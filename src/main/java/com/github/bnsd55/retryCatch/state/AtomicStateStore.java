@@ -0,0 +1,51 @@
+package com.github.bnsd55.retryCatch.state;
+
+import com.github.bnsd55.retryCatch.interfaces.StateStore;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory StateStore, the default store of the policies,
+ * visible only to the current process.
+ */
+public class AtomicStateStore implements StateStore {
+
+    /**
+     * The slots of the store
+     */
+    private final AtomicLongArray slots;
+
+    /**
+     * Ctor
+     *
+     * @param size the amount of slots
+     */
+    public AtomicStateStore(int size) {
+        this.slots = new AtomicLongArray(size);
+    }
+
+    @Override
+    public int size() {
+        return this.slots.length();
+    }
+
+    @Override
+    public long get(int slot) {
+        return this.slots.get(slot);
+    }
+
+    @Override
+    public void set(int slot, long value) {
+        this.slots.set(slot, value);
+    }
+
+    @Override
+    public boolean compareAndSet(int slot, long expect, long update) {
+        return this.slots.compareAndSet(slot, expect, update);
+    }
+
+    @Override
+    public long getAndAdd(int slot, long delta) {
+        return this.slots.getAndAdd(slot, delta);
+    }
+}
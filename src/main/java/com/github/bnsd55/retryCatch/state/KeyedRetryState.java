@@ -0,0 +1,281 @@
+package com.github.bnsd55.retryCatch.state;
+
+import com.github.bnsd55.retryCatch.interfaces.Clock;
+import com.github.bnsd55.retryCatch.policies.AttemptMetrics;
+import com.github.bnsd55.retryCatch.policies.CircuitBreaker;
+import com.github.bnsd55.retryCatch.policies.RetryBudget;
+import com.github.bnsd55.retryCatch.utilities.SystemClock;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Per key (shard, tenant...) retry state, every key gets its own circuit breaker,
+ * retry budget and metrics, so a single bad key neither trips the protection of the others
+ * nor hides behind their successes.
+ *
+ * Keys are spread over independent stripes (ConcurrentHashMap each),
+ * every stripe is bounded and evicts idle keys, so memory stays flat with millions of keys
+ * and hot keys never contend on a shared lock.
+ *
+ * @param <K> the type of the keys
+ */
+public class KeyedRetryState<K> {
+
+    /**
+     * Idle keys are evicted on insertion, when the stripe is full
+     * and no key is idle, this fraction of the least recently used keys is evicted at once.
+     */
+    private static final int EVICTION_BATCH_DIVISOR = 8;
+
+    /**
+     * The stripe index is taken from the top 8 bits of the key hash.
+     */
+    private static final int MAX_STRIPES = 256;
+
+    /**
+     * The type of the keys, checked on keyed calls of RetryCatch (which accept any key object).
+     */
+    private final Class<K> keyType;
+
+    private final Supplier<CircuitBreaker> circuitBreakerFactory;
+
+    private final Supplier<RetryBudget> retryBudgetFactory;
+
+    private final ConcurrentHashMap<K, Entry>[] stripes;
+
+    /**
+     * Prevents concurrent evictions of the same stripe, losers skip the eviction instead of waiting.
+     */
+    private final AtomicBoolean[] evicting;
+
+    private final int stripeMask;
+
+    private final int maxKeysPerStripe;
+
+    private final long idleTimeoutNanos;
+
+    /**
+     * Access time is refreshed at most once per this period, so hot keys do not write on every attempt.
+     */
+    private final long accessResolutionNanos;
+
+    /**
+     * The time source of the idle eviction, SystemClock unless simulated.
+     */
+    private final Clock clock;
+
+    /**
+     * Ctor
+     *
+     * @param keyType               the type of the keys
+     * @param circuitBreakerFactory creates the circuit breaker of a new key, or null for no circuit breaker
+     * @param retryBudgetFactory    creates the retry budget of a new key, or null for no retry budget
+     * @param maxKeys               the max amount of keys to hold
+     * @param idleTimeout           how long a key may stay unused before it may be evicted
+     * @param unit                  the time unit of the idleTimeout parameter
+     */
+    public KeyedRetryState(Class<K> keyType, Supplier<CircuitBreaker> circuitBreakerFactory,
+                           Supplier<RetryBudget> retryBudgetFactory, int maxKeys, long idleTimeout, TimeUnit unit) {
+        this(keyType, circuitBreakerFactory, retryBudgetFactory, maxKeys, idleTimeout, unit, SystemClock.INSTANCE);
+    }
+
+    /**
+     * Ctor
+     *
+     * @param keyType               the type of the keys
+     * @param circuitBreakerFactory creates the circuit breaker of a new key, or null for no circuit breaker
+     * @param retryBudgetFactory    creates the retry budget of a new key, or null for no retry budget
+     * @param maxKeys               the max amount of keys to hold
+     * @param idleTimeout           how long a key may stay unused before it may be evicted
+     * @param unit                  the time unit of the idleTimeout parameter
+     * @param clock                 the time source of the idle eviction, for example a VirtualClock in simulations
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public KeyedRetryState(Class<K> keyType, Supplier<CircuitBreaker> circuitBreakerFactory,
+                           Supplier<RetryBudget> retryBudgetFactory, int maxKeys, long idleTimeout, TimeUnit unit,
+                           Clock clock) {
+        if (keyType == null) {
+            throw new IllegalArgumentException("keyType must not be null");
+        }
+
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("maxKeys must be positive");
+        }
+
+        // A power of two stripes count, about 4 stripes per core but never more stripes than keys
+        int stripesCount = Integer.highestOneBit(Math.max(1,
+                Math.min(Math.min(maxKeys, MAX_STRIPES), Runtime.getRuntime().availableProcessors() * 4)));
+
+        this.keyType = keyType;
+        this.circuitBreakerFactory = circuitBreakerFactory;
+        this.retryBudgetFactory = retryBudgetFactory;
+        this.stripes = new ConcurrentHashMap[stripesCount];
+        this.evicting = new AtomicBoolean[stripesCount];
+        this.stripeMask = stripesCount - 1;
+        this.maxKeysPerStripe = (maxKeys + stripesCount - 1) / stripesCount;
+        this.idleTimeoutNanos = unit.toNanos(Math.abs(idleTimeout));
+        this.accessResolutionNanos = Math.max(1, this.idleTimeoutNanos / 16);
+        this.clock = clock;
+
+        for (int i = 0; i < stripesCount; i++) {
+            this.stripes[i] = new ConcurrentHashMap<>();
+            this.evicting[i] = new AtomicBoolean();
+        }
+    }
+
+    /**
+     * Gets the state of a key, creates it when the key is new.
+     *
+     * @param key the key, must not be null
+     * @return the retry state of the key
+     */
+    public RetryState get(K key) {
+        int stripe = this.stripeOf(key);
+        ConcurrentHashMap<K, Entry> map = this.stripes[stripe];
+        long now = this.clock.nanoTime();
+        Entry entry = map.get(key);
+
+        if (entry == null) {
+            entry = map.computeIfAbsent(key, k -> new Entry(
+                    this.circuitBreakerFactory != null ? this.circuitBreakerFactory.get() : null,
+                    this.retryBudgetFactory != null ? this.retryBudgetFactory.get() : null,
+                    now));
+
+            if (map.size() > this.maxKeysPerStripe) {
+                this.evict(stripe, now);
+            }
+        } else if (now - entry.lastAccess > this.accessResolutionNanos) {
+            entry.lastAccess = now;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Gets the state of a key without creating it.
+     *
+     * @param key the key, must not be null
+     * @return the retry state of the key, or null if the key is unknown (or has been evicted)
+     */
+    public RetryState peek(K key) {
+        return this.stripes[this.stripeOf(key)].get(key);
+    }
+
+    /**
+     * @return the type of the keys
+     */
+    public Class<K> getKeyType() {
+        return this.keyType;
+    }
+
+    /**
+     * @return the amount of keys currently held
+     */
+    public int size() {
+        int size = 0;
+
+        for (ConcurrentHashMap<K, Entry> map : this.stripes) {
+            size += map.size();
+        }
+
+        return size;
+    }
+
+    /**
+     * Evicts all the idle keys, may be called periodically when keys are rarely added.
+     */
+    public void evictIdle() {
+        long now = this.clock.nanoTime();
+
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.evict(i, now);
+        }
+    }
+
+    /**
+     * Evicts the idle keys of a stripe, if the stripe is still full,
+     * evicts a batch of its least recently used keys.
+     *
+     * @param stripe the stripe index
+     * @param now    the current Clock.nanoTime()
+     */
+    private void evict(int stripe, long now) {
+        if (!this.evicting[stripe].compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            ConcurrentHashMap<K, Entry> map = this.stripes[stripe];
+
+            map.values().removeIf(entry -> now - entry.lastAccess > this.idleTimeoutNanos);
+
+            int excess = map.size() - this.maxKeysPerStripe;
+
+            if (excess <= 0) {
+                return;
+            }
+
+            // Finds the access time cutoff of the batch to evict
+            long[] accessTimes = new long[map.size()];
+            int count = 0;
+
+            for (Entry entry : map.values()) {
+                if (count == accessTimes.length) {
+                    break;
+                }
+
+                accessTimes[count++] = entry.lastAccess - now;
+            }
+
+            Arrays.sort(accessTimes, 0, count);
+
+            int batch = Math.min(count, excess + this.maxKeysPerStripe / EVICTION_BATCH_DIVISOR);
+            long cutoff = accessTimes[Math.max(0, batch - 1)];
+            Iterator<Map.Entry<K, Entry>> iterator = map.entrySet().iterator();
+
+            while (iterator.hasNext() && batch > 0) {
+                if (iterator.next().getValue().lastAccess - now <= cutoff) {
+                    iterator.remove();
+                    batch--;
+                }
+            }
+        } finally {
+            this.evicting[stripe].set(false);
+        }
+    }
+
+    /**
+     * @param key the key
+     * @return the stripe index of the key
+     */
+    private int stripeOf(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key must not be null");
+        }
+
+        // Takes the top bits of a Fibonacci hash, ConcurrentHashMap uses the low bits of the same hash code
+        return ((key.hashCode() * 0x9E3779B9) >>> 24) & this.stripeMask;
+    }
+
+    /**
+     * The retry state of a single key with its last access time.
+     */
+    private static class Entry extends RetryState {
+
+        /**
+         * Clock.nanoTime() of the last access, refreshed lazily (see accessResolutionNanos).
+         */
+        private volatile long lastAccess;
+
+        private Entry(CircuitBreaker circuitBreaker, RetryBudget retryBudget, long lastAccess) {
+            super(circuitBreaker, retryBudget, new AttemptMetrics());
+            this.lastAccess = lastAccess;
+        }
+    }
+}
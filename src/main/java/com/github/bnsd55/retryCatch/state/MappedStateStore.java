@@ -0,0 +1,127 @@
+package com.github.bnsd55.retryCatch.state;
+
+import com.github.bnsd55.retryCatch.interfaces.StateStore;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * StateStore backed by a small memory-mapped file,
+ * every process on the host that opens the same file sees the same slots,
+ * so a CircuitBreaker or a RetryBudget opened in one JVM is shared with all the others
+ * without any network service.
+ *
+ * Slots are updated with atomic CPU instructions directly on the mapped memory (via UnsafeMemory),
+ * there are no file locks on the hot path.
+ */
+public class MappedStateStore implements StateStore {
+
+    /**
+     * Marks a file that has been initialized by MappedStateStore, the low bits hold the amount of slots.
+     */
+    private static final long MAGIC = 0x5243535400000000L;
+
+    /**
+     * The size of the header (in slots) at the beginning of the file.
+     */
+    private static final int HEADER_SLOTS = 1;
+
+    /**
+     * Keeps the mapping alive, the file is unmapped once the buffer is garbage collected.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The native address of the first data slot.
+     */
+    private final long address;
+
+    /**
+     * The amount of data slots.
+     */
+    private final int size;
+
+    /**
+     * Ctor
+     *
+     * @param buffer the mapped file
+     * @param size   the amount of data slots
+     */
+    private MappedStateStore(MappedByteBuffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+
+        long base = UnsafeMemory.addressOf(buffer);
+        long header = MAGIC | size;
+
+        // A new file is filled with zeros, the first process to open it writes the header
+        if (!UnsafeMemory.compareAndSwapLong(base, 0L, header) && UnsafeMemory.getLongVolatile(base) != header) {
+            throw new IllegalStateException("The state file was created with a different layout");
+        }
+
+        this.address = base + HEADER_SLOTS * 8L;
+    }
+
+    /**
+     * Opens (or creates) a shared state file with the given amount of slots,
+     * all the processes that share the file must open it with the same amount of slots.
+     *
+     * @param file the state file, usually on a tmpfs such as /dev/shm
+     * @param size the amount of slots, for example CircuitBreaker.SLOTS
+     * @return a store backed by the mapped file
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static MappedStateStore open(Path file, int size) throws IOException {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (HEADER_SLOTS + size) * 8L);
+
+            return new MappedStateStore(buffer, size);
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public long get(int slot) {
+        return UnsafeMemory.getLongVolatile(this.addressOf(slot));
+    }
+
+    @Override
+    public void set(int slot, long value) {
+        UnsafeMemory.putLongVolatile(this.addressOf(slot), value);
+    }
+
+    @Override
+    public boolean compareAndSet(int slot, long expect, long update) {
+        return UnsafeMemory.compareAndSwapLong(this.addressOf(slot), expect, update);
+    }
+
+    @Override
+    public long getAndAdd(int slot, long delta) {
+        return UnsafeMemory.getAndAddLong(this.addressOf(slot), delta);
+    }
+
+    /**
+     * @param slot the slot index
+     * @return the native address of the slot
+     */
+    private long addressOf(int slot) {
+        if (slot < 0 || slot >= this.size) {
+            throw new IndexOutOfBoundsException("slot " + slot);
+        }
+
+        return this.address + slot * 8L;
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.bnsd55.retryCatch.state;
+
+import com.github.bnsd55.retryCatch.policies.AttemptMetrics;
+import com.github.bnsd55.retryCatch.policies.CircuitBreaker;
+import com.github.bnsd55.retryCatch.policies.RetryBudget;
+
+/**
+ * The stateful policies a RetryCatch consults on every attempt,
+ * each one is optional (null when not used).
+ */
+public class RetryState {
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final RetryBudget retryBudget;
+
+    private final AttemptMetrics metrics;
+
+    /**
+     * Ctor
+     *
+     * @param circuitBreaker the circuit breaker, or null
+     * @param retryBudget    the retry budget, or null
+     * @param metrics        the attempt metrics, or null
+     */
+    public RetryState(CircuitBreaker circuitBreaker, RetryBudget retryBudget, AttemptMetrics metrics) {
+        this.circuitBreaker = circuitBreaker;
+        this.retryBudget = retryBudget;
+        this.metrics = metrics;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    public RetryBudget getRetryBudget() {
+        return this.retryBudget;
+    }
+
+    public AttemptMetrics getMetrics() {
+        return this.metrics;
+    }
+}
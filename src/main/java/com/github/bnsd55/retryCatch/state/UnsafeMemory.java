@@ -0,0 +1,131 @@
+package com.github.bnsd55.retryCatch.state;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * The only user of sun.misc.Unsafe, atomic operations on native (mapped) memory.
+ *
+ * Unsafe is reached through method handles resolved once, so the sources do not reference it at compile time
+ * (no "internal proprietary API" warnings, and javac --release 8 compiles), constant method handles
+ * invoked exactly are inlined by the JIT like direct calls.
+ */
+final class UnsafeMemory {
+
+    private static final long ADDRESS_OFFSET;
+
+    /**
+     * Unsafe.getLong(Object, long), bound to the Unsafe instance.
+     */
+    private static final MethodHandle GET_LONG;
+
+    /**
+     * Unsafe.getLongVolatile(Object, long), bound to the Unsafe instance.
+     */
+    private static final MethodHandle GET_LONG_VOLATILE;
+
+    /**
+     * Unsafe.putLongVolatile(Object, long, long), bound to the Unsafe instance.
+     */
+    private static final MethodHandle PUT_LONG_VOLATILE;
+
+    /**
+     * Unsafe.compareAndSwapLong(Object, long, long, long), bound to the Unsafe instance.
+     */
+    private static final MethodHandle COMPARE_AND_SWAP_LONG;
+
+    /**
+     * Unsafe.getAndAddLong(Object, long, long), bound to the Unsafe instance.
+     */
+    private static final MethodHandle GET_AND_ADD_LONG;
+
+    static {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Object unsafe = theUnsafe.get(null);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            ADDRESS_OFFSET = (Long) unsafeClass.getMethod("objectFieldOffset", Field.class)
+                    .invoke(unsafe, Buffer.class.getDeclaredField("address"));
+            GET_LONG = lookup.findVirtual(unsafeClass, "getLong",
+                    methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+            GET_LONG_VOLATILE = lookup.findVirtual(unsafeClass, "getLongVolatile",
+                    methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+            PUT_LONG_VOLATILE = lookup.findVirtual(unsafeClass, "putLongVolatile",
+                    methodType(void.class, Object.class, long.class, long.class)).bindTo(unsafe);
+            COMPARE_AND_SWAP_LONG = lookup.findVirtual(unsafeClass, "compareAndSwapLong",
+                    methodType(boolean.class, Object.class, long.class, long.class, long.class)).bindTo(unsafe);
+            GET_AND_ADD_LONG = lookup.findVirtual(unsafeClass, "getAndAddLong",
+                    methodType(long.class, Object.class, long.class, long.class)).bindTo(unsafe);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private UnsafeMemory() {
+    }
+
+    /**
+     * @param buffer a direct (or mapped) buffer
+     * @return the native address of the buffer memory
+     */
+    static long addressOf(Buffer buffer) {
+        try {
+            return (long) GET_LONG.invokeExact((Object) buffer, ADDRESS_OFFSET);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    static long getLongVolatile(long address) {
+        try {
+            return (long) GET_LONG_VOLATILE.invokeExact((Object) null, address);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    static void putLongVolatile(long address, long value) {
+        try {
+            PUT_LONG_VOLATILE.invokeExact((Object) null, address, value);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    static boolean compareAndSwapLong(long address, long expect, long update) {
+        try {
+            return (boolean) COMPARE_AND_SWAP_LONG.invokeExact((Object) null, address, expect, update);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    static long getAndAddLong(long address, long delta) {
+        try {
+            return (long) GET_AND_ADD_LONG.invokeExact((Object) null, address, delta);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    /**
+     * Unsafe does not throw checked exceptions, rethrows unchecked ones as they are.
+     *
+     * @param t the thrown exception
+     * @return the exception to throw
+     */
+    private static RuntimeException propagate(Throwable t) {
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+
+        return t instanceof RuntimeException ? (RuntimeException) t : new IllegalStateException(t);
+    }
+}
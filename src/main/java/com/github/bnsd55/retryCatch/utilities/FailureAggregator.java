@@ -0,0 +1,166 @@
+package com.github.bnsd55.retryCatch.utilities;
+
+import com.github.bnsd55.retryCatch.exceptions.RetryFailedException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Aggregates the failures of a single RetryCatch execution in bounded memory,
+ * keeps the first and the last failures and counts all the failures by type,
+ * so a long outage with infinite retries does not hold every exception.
+ *
+ * The kept failures are the ones before the terminal exception (which is the cause of the summary),
+ * the failures are never modified.
+ */
+public class FailureAggregator {
+
+    /**
+     * Exception types beyond this amount are counted under Throwable.class.
+     */
+    private static final int MAX_COUNTED_TYPES = 32;
+
+    private final Throwable[] first;
+
+    /**
+     * Ring of the last failures, the next slot is (stored - first.length) % last.length.
+     */
+    private final Throwable[] last;
+
+    private final boolean collapseRepeated;
+
+    private final Map<Class<? extends Throwable>, Long> counts;
+
+    private long attempts;
+
+    /**
+     * The latest failure, stored in first or last only once the next failure is added,
+     * so the terminal exception does not take the place of a kept failure.
+     */
+    private Throwable pending;
+
+    /**
+     * The amount of failures stored in first or last (including overwritten ones).
+     */
+    private long stored;
+
+    /**
+     * The first failure of the current run of identical failures (when collapsing repeated failures).
+     */
+    private Throwable runHead;
+
+    /**
+     * Ctor
+     *
+     * @param keepFirst        the amount of first failures to keep
+     * @param keepLast         the amount of last failures to keep before the terminal exception
+     * @param collapseRepeated true in order to keep a single failure (the first one) for a run of failures
+     *                         identical (type and message) to each other, the repeated ones are not held in memory
+     */
+    public FailureAggregator(int keepFirst, int keepLast, boolean collapseRepeated) {
+        this.first = new Throwable[Math.abs(keepFirst)];
+        this.last = new Throwable[Math.abs(keepLast)];
+        this.collapseRepeated = collapseRepeated;
+        this.counts = new LinkedHashMap<>();
+    }
+
+    /**
+     * Adds a failed attempt.
+     *
+     * @param failure the threw exception
+     */
+    public void add(Throwable failure) {
+        Class<? extends Throwable> type = failure.getClass();
+
+        if (!this.counts.containsKey(type) && this.counts.size() >= MAX_COUNTED_TYPES) {
+            type = Throwable.class;
+        }
+
+        this.counts.merge(type, 1L, Long::sum);
+        this.attempts++;
+
+        if (this.pending != null) {
+            this.store(this.pending);
+        }
+
+        this.pending = failure;
+    }
+
+    /**
+     * @return the amount of failed attempts
+     */
+    public long getAttempts() {
+        return this.attempts;
+    }
+
+    /**
+     * Creates the terminal failure.
+     *
+     * @param terminal the exception that ended the execution
+     * @return an exception with the terminal exception as a cause and the kept failures as suppressed
+     */
+    public RetryFailedException toException(Exception terminal) {
+        // A terminal exception that is not a failed attempt (a rejection) keeps the latest failure as a last one
+        if (this.pending != null && this.pending != terminal) {
+            this.store(this.pending);
+            this.pending = null;
+        }
+
+        List<Throwable> kept = new ArrayList<>();
+        int firstKept = (int) Math.min(this.stored, this.first.length);
+        int lastKept = (int) Math.min(this.stored - firstKept, this.last.length);
+
+        for (int i = 0; i < firstKept; i++) {
+            addKept(kept, this.first[i]);
+        }
+
+        // Oldest first, the ring slot after the latest one is the oldest kept failure
+        for (int i = lastKept; i > 0; i--) {
+            addKept(kept, this.last[(int) ((this.stored - this.first.length - i) % this.last.length)]);
+        }
+
+        long terminalAttempts = this.pending == terminal ? 1 : 0;
+
+        return new RetryFailedException(terminal, this.attempts,
+                this.attempts - terminalAttempts - firstKept - lastKept, new LinkedHashMap<>(this.counts), kept);
+    }
+
+    /**
+     * @param kept    the kept failures, oldest first
+     * @param failure the next kept failure, a collapsed run of identical failures is kept once
+     */
+    private static void addKept(List<Throwable> kept, Throwable failure) {
+        if (kept.isEmpty() || kept.get(kept.size() - 1) != failure) {
+            kept.add(failure);
+        }
+    }
+
+    /**
+     * Stores a failure before the terminal one in first or in the last failures ring.
+     *
+     * @param failure the failure
+     */
+    private void store(Throwable failure) {
+        Throwable kept = failure;
+
+        if (this.collapseRepeated) {
+            if (this.runHead != null && this.runHead.getClass() == failure.getClass() &&
+                    Objects.equals(this.runHead.getMessage(), failure.getMessage())) {
+                kept = this.runHead;
+            } else {
+                this.runHead = failure;
+            }
+        }
+
+        long slot = this.stored++;
+
+        if (slot < this.first.length) {
+            this.first[(int) slot] = kept;
+        } else if (this.last.length > 0) {
+            this.last[(int) ((slot - this.first.length) % this.last.length)] = kept;
+        }
+    }
+}
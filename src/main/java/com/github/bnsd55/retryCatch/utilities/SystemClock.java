@@ -0,0 +1,42 @@
+package com.github.bnsd55.retryCatch.utilities;
+
+import com.github.bnsd55.retryCatch.interfaces.Clock;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The system time source, the default Clock of the policies.
+ */
+public class SystemClock implements Clock {
+
+    public static final SystemClock INSTANCE = new SystemClock();
+
+    private SystemClock() {
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void parkNanos(long nanos) {
+        // LockSupport.parkNanos may return spuriously, so keep parking until the deadline
+        long deadline = System.nanoTime() + nanos;
+
+        while (nanos > 0) {
+            LockSupport.parkNanos(this, nanos);
+
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+
+            nanos = deadline - System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.bnsd55.retryCatch.recorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder event of a single attempt,
+ * loaded only when JFR is available (see AttemptRecorder and FlightRecorderEmitter).
+ */
+@Name("com.github.bnsd55.retryCatch.Attempt")
+@Label("RetryCatch Attempt")
+@Category("RetryCatch")
+@Description("A single attempt of a RetryCatch task")
+class AttemptEvent extends Event {
+
+    @Label("Attempt")
+    @Description("The attempt number, 0 for the first attempt")
+    int attempt;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Exception Type")
+    Class<?> exceptionType;
+
+    @Label("Wait Duration")
+    @Description("The time waited before the attempt (circuit breaker and rate limiter)")
+    @Timespan(Timespan.NANOSECONDS)
+    long waitDuration;
+
+    @Label("Attempt Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long attemptDuration;
+
+    /**
+     * Commits an event when the event is enabled in the running recording.
+     */
+    static void emit(int attempt, AttemptOutcome outcome, Class<? extends Throwable> exceptionType,
+                     long waitNanos, long durationNanos) {
+        AttemptEvent event = new AttemptEvent();
+
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.attempt = attempt;
+        event.outcome = outcome.name();
+        event.exceptionType = exceptionType;
+        event.waitDuration = waitNanos;
+        event.attemptDuration = durationNanos;
+
+        if (event.shouldCommit()) {
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.bnsd55.retryCatch.recorder;
+
+/**
+ * Emits the attempts as JDK Flight Recorder events,
+ * loaded by AttemptRecorder by name only when jdk.jfr is available.
+ */
+class FlightRecorderEmitter implements AttemptEventEmitter {
+
+    @Override
+    public void emit(int attempt, AttemptOutcome outcome, Class<? extends Throwable> exceptionType,
+                     long waitNanos, long durationNanos) {
+        AttemptEvent.emit(attempt, outcome, exceptionType, waitNanos, durationNanos);
+    }
+}